@@ -0,0 +1,98 @@
+package de.tum.cit.ase.maze.benchmarks;
+
+import de.tum.cit.ase.maze.simulation.TileMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures questions about the whole map, answered with bitboards (64 tiles per operation)
+ * and tile by tile for comparison: the floor reachable from the entry and the floor tiles next to a trap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalysisBenchmark {
+
+    @Param({"256", "1024"})
+    public int size;
+
+    private final TileMap tileMap = new TileMap();
+    private int entry;
+    private int[] queue;
+    private boolean[] visited;
+
+    @Setup
+    public void setup() {
+        tileMap.setTiles(MapGenerator.generate(size, size, 42));
+        entry = tileMap.findEntryCell();
+        queue = new int[size * size];
+        visited = new boolean[size * size];
+    }
+
+    @Benchmark
+    public int reachableFloor() {
+        return tileMap.getReachable(entry).and(tileMap.getLayer(TileMap.FLOOR)).count();
+    }
+
+    /**
+     * Breadth-first search over the tiles, the way it would be written without bitboards
+     */
+    @Benchmark
+    public int reachableFloorBfs() {
+        Arrays.fill(visited, false);
+        int head = 0;
+        int tail = 0;
+        int floor = 0;
+        queue[tail++] = entry;
+        visited[entry] = true;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = tileMap.cellX(cell);
+            int y = tileMap.cellY(cell);
+            if (tileMap.getTile(x, y) == TileMap.FLOOR) {
+                floor++;
+            }
+            tail = visit(x + 1, y, tail);
+            tail = visit(x - 1, y, tail);
+            tail = visit(x, y + 1, tail);
+            tail = visit(x, y - 1, tail);
+        }
+        return floor;
+    }
+
+    private int visit(int x, int y, int tail) {
+        if (tileMap.isWithinBounds(x, y) && !TileMap.isSolid(tileMap.getTile(x, y))) {
+            int cell = tileMap.cellIndex(x, y);
+            if (!visited[cell]) {
+                visited[cell] = true;
+                queue[tail++] = cell;
+            }
+        }
+        return tail;
+    }
+
+    @Benchmark
+    public int floorNextToTrap() {
+        return tileMap.getLayer(TileMap.FLOOR).and(tileMap.getLayer(TileMap.TRAP).addNeighbours()).count();
+    }
+
+    @Benchmark
+    public int floorNextToTrapTileByTile() {
+        int count = 0;
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (tileMap.getTile(x, y) == TileMap.FLOOR
+                        && (tileMap.getTile(x + 1, y) == TileMap.TRAP || tileMap.getTile(x - 1, y) == TileMap.TRAP
+                        || tileMap.getTile(x, y + 1) == TileMap.TRAP || tileMap.getTile(x, y - 1) == TileMap.TRAP)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
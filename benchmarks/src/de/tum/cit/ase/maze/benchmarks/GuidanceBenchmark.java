@@ -0,0 +1,71 @@
+package de.tum.cit.ase.maze.benchmarks;
+
+import de.tum.cit.ase.maze.simulation.GuidancePlanner;
+import de.tum.cit.ase.maze.simulation.TileMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures keeping the path to the nearest key up to date while the player walks along it,
+ * one tile per invocation: repaired by the GuidancePlanner, or planned again from scratch.
+ * Every 16th step a wall next to the player is toggled, like a removed enemy or key changes the map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GuidanceBenchmark {
+    @Param({"128", "512"})
+    public int size;
+
+    private final TileMap tileMap = new TileMap();
+    private GuidancePlanner planner;
+    private int firstCell;
+    private int player;
+    private int steps = 0;
+
+    @Setup
+    public void setup() {
+        tileMap.setTiles(MapGenerator.generate(size, size, 42));
+        planner = new GuidancePlanner(tileMap);
+        planner.setGoalType(TileMap.KEY);
+        firstCell = tileMap.getLayer(TileMap.FLOOR).select(0);
+        player = firstCell;
+        planner.update(tileMap.cellX(player), tileMap.cellY(player), Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public int walkRepaired() {
+        step();
+        planner.update(tileMap.cellX(player), tileMap.cellY(player), Long.MAX_VALUE);
+        return planner.getPathLength();
+    }
+
+    @Benchmark
+    public int walkFromScratch() {
+        step();
+        // changing the goal type drops all distances
+        planner.setGoalType(TileMap.EXIT);
+        planner.setGoalType(TileMap.KEY);
+        planner.update(tileMap.cellX(player), tileMap.cellY(player), Long.MAX_VALUE);
+        return planner.getPathLength();
+    }
+
+    /**
+     * Moves the player one tile along the current path, back to the first floor tile at the end of it
+     */
+    private void step() {
+        player = planner.getPathLength() > 2 ? planner.getPathCell(1) : firstCell;
+        if (++steps % 16 == 0) {
+            int x = tileMap.cellX(player);
+            int y = tileMap.cellY(player) + 1;
+            int tile = tileMap.getTile(x, y);
+            if (y < size - 1 && (tile == TileMap.WALL || tile == TileMap.FLOOR)) {
+                tileMap.setTile(x, y, tile == TileMap.WALL ? TileMap.FLOOR : TileMap.WALL);
+            }
+        }
+    }
+}
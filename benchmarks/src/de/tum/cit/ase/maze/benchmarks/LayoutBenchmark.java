@@ -0,0 +1,154 @@
+package de.tum.cit.ase.maze.benchmarks;
+
+import de.tum.cit.ase.maze.simulation.BlockedTileStore;
+import de.tum.cit.ase.maze.simulation.DenseTileStore;
+import de.tum.cit.ase.maze.simulation.TileMap;
+import de.tum.cit.ase.maze.simulation.TileStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the memory layouts of the tiles on queries that look at 2D neighbourhoods:
+ * "columns" is the int[][] indexed by [x][y] the game used to keep, "rows" the DenseTileStore
+ * and "blocks" the BlockedTileStore. The centers are random, so large maps don't fit into the caches.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LayoutBenchmark {
+    private static final int POSITIONS = 4096;
+    // side of the square the wall variants are computed for, about one screen
+    private static final int VIEW = 32;
+
+    @Param({"columns", "rows", "blocks"})
+    public String layout;
+
+    @Param({"1024", "4096"})
+    public int size;
+
+    private TileStore store;
+    private final int[] xPositions = new int[POSITIONS];
+    private final int[] yPositions = new int[POSITIONS];
+
+    @Setup
+    public void setup() {
+        int[][] map = MapGenerator.generate(size, size, 42);
+        byte[] rows = new byte[size * size];
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                rows[y * size + x] = (byte) map[x][y];
+            }
+        }
+        TileStore dense = new DenseTileStore(size, size, rows);
+        store = switch (layout) {
+            case "columns" -> new ColumnTileStore(map);
+            case "rows" -> dense;
+            case "blocks" -> BlockedTileStore.copyOf(dense);
+            default -> throw new IllegalArgumentException("unknown layout " + layout);
+        };
+        Random random = new Random(3);
+        for (int i = 0; i < POSITIONS; i++) {
+            xPositions[i] = 1 + random.nextInt(size - VIEW - 2);
+            yPositions[i] = 1 + random.nextInt(size - VIEW - 2);
+        }
+    }
+
+    /**
+     * Counts the enemies in the 3x3 tiles around every center, like an attack or an enemy collision check
+     */
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public int scan3x3() {
+        int enemies = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            int centerX = xPositions[i];
+            int centerY = yPositions[i];
+            for (int y = centerY - 1; y <= centerY + 1; y++) {
+                for (int x = centerX - 1; x <= centerX + 1; x++) {
+                    if (store.getTile(x, y) == TileMap.ENEMY) {
+                        enemies++;
+                    }
+                }
+            }
+        }
+        return enemies;
+    }
+
+    /**
+     * Computes the wall variants (walls above and below) of a view-sized square at a few centers
+     */
+    @Benchmark
+    @OperationsPerInvocation(VIEW * VIEW * 64)
+    public int wallVariants() {
+        int variants = 0;
+        for (int i = 0; i < 64; i++) {
+            int left = xPositions[i];
+            int top = yPositions[i];
+            for (int y = top; y < top + VIEW; y++) {
+                for (int x = left; x < left + VIEW; x++) {
+                    if (store.getTile(x, y - 1) == TileMap.WALL) {
+                        variants++;
+                    }
+                    if (store.getTile(x, y + 1) == TileMap.WALL) {
+                        variants += 2;
+                    }
+                }
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * Looks at the four neighbours of every center, like an enemy choosing a free tile to move to
+     */
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public int freeNeighbours() {
+        int free = 0;
+        for (int i = 0; i < POSITIONS; i++) {
+            int x = xPositions[i];
+            int y = yPositions[i];
+            free += (store.getTile(x, y - 1) == TileMap.FLOOR ? 1 : 0)
+                    + (store.getTile(x, y + 1) == TileMap.FLOOR ? 1 : 0)
+                    + (store.getTile(x - 1, y) == TileMap.FLOOR ? 1 : 0)
+                    + (store.getTile(x + 1, y) == TileMap.FLOOR ? 1 : 0);
+        }
+        return free;
+    }
+
+    /**
+     * The int[][] indexed by [x][y] of the original MapClass, every column is its own array
+     */
+    private static class ColumnTileStore implements TileStore {
+        private final int[][] map;
+
+        ColumnTileStore(int[][] map) {
+            this.map = map;
+        }
+
+        @Override
+        public int getWidth() {
+            return map.length;
+        }
+
+        @Override
+        public int getHeight() {
+            return map[0].length;
+        }
+
+        @Override
+        public int getTile(int x, int y) {
+            return map[x][y];
+        }
+
+        @Override
+        public void setTile(int x, int y, int tileType) {
+            map[x][y] = tileType;
+        }
+    }
+}
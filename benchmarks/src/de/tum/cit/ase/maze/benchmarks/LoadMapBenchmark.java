@@ -0,0 +1,60 @@
+package de.tum.cit.ase.maze.benchmarks;
+
+import de.tum.cit.ase.maze.simulation.BinaryLevel;
+import de.tum.cit.ase.maze.simulation.ParallelMapParser;
+import de.tum.cit.ase.maze.simulation.TileMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading a map from its .properties text, sequentially and in parallel,
+ * and from the same map as binary level.
+ * The files are read into memory first, so the disk is not part of the measurement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadMapBenchmark {
+
+    @Param({"level-1", "level-2", "level-3", "level-4", "level-5", "synthetic-256", "synthetic-1024", "outposts-4096"})
+    public String map;
+
+    private String properties;
+    private ByteBuffer text;
+    private ByteBuffer binary;
+    private final TileMap tileMap = new TileMap();
+
+    @Setup
+    public void setup() throws IOException {
+        properties = MapGenerator.load(map);
+        text = ByteBuffer.wrap(properties.getBytes(StandardCharsets.ISO_8859_1));
+        binary = BinaryLevel.toBuffer(TileMap.readProperties(new StringReader(properties)));
+    }
+
+    @Benchmark
+    public TileMap loadMap() throws IOException {
+        tileMap.load(new StringReader(properties));
+        return tileMap;
+    }
+
+    @Benchmark
+    public TileMap loadParallel() throws IOException {
+        tileMap.setStore(ParallelMapParser.parseStore(text, ForkJoinPool.commonPool()));
+        return tileMap;
+    }
+
+    @Benchmark
+    public TileMap loadBinary() throws IOException {
+        tileMap.setStore(BinaryLevel.read(binary.duplicate()));
+        return tileMap;
+    }
+}
@@ -0,0 +1,175 @@
+package de.tum.cit.ase.maze.benchmarks;
+
+import de.tum.cit.ase.maze.simulation.TileMap;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The MapGenerator class creates the maps the benchmarks run on:
+ * the levels of the game and synthetic maps of any size.
+ */
+public final class MapGenerator {
+    // directory of the level files, set by the benchmarks build
+    public static final String MAPS_PROPERTY = "maze.maps";
+
+    private MapGenerator() {
+    }
+
+    /**
+     * Creates a maze-like map: walls around the border, random walls, traps, enemies and keys inside.
+     * The entry is placed in the last column, so searching for it has to look at nearly every tile.
+     *
+     * @param width
+     * @param height
+     * @param seed   the same seed always creates the same map
+     * @return tile types indexed by [x][y]
+     */
+    public static int[][] generate(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[][] map = new int[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (x == 0 || y == 0 || x == width - 1 || y == height - 1) {
+                    map[x][y] = TileMap.WALL;
+                    continue;
+                }
+                float roll = random.nextFloat();
+                if (roll < 0.25f) {
+                    map[x][y] = TileMap.WALL;
+                } else if (roll < 0.27f) {
+                    map[x][y] = TileMap.TRAP;
+                } else if (roll < 0.29f) {
+                    map[x][y] = TileMap.ENEMY;
+                } else if (roll < 0.292f) {
+                    map[x][y] = TileMap.KEY;
+                } else {
+                    map[x][y] = TileMap.FLOOR;
+                }
+            }
+        }
+        map[width - 1][height / 2] = TileMap.EXIT;
+        map[width - 2][height - 2] = TileMap.ENTRY;
+        return map;
+    }
+
+    /**
+     * Creates a map that is all walls except for a few random floor tiles
+     *
+     * @param width
+     * @param height
+     * @param floorTiles number of floor tiles, at least one
+     * @param seed
+     * @return tile types indexed by [x][y]
+     */
+    public static int[][] nearlyFull(int width, int height, int floorTiles, long seed) {
+        Random random = new Random(seed);
+        int[][] map = new int[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                map[x][y] = TileMap.WALL;
+            }
+        }
+        map[0][0] = TileMap.ENTRY;
+        int placed = 0;
+        while (placed < floorTiles) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            if (map[x][y] == TileMap.WALL) {
+                map[x][y] = TileMap.FLOOR;
+                placed++;
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Creates a mostly empty map: small walled rooms with a few objects, far apart from each other,
+     * about 1% of the tiles are not floor. The entry is in the last room.
+     *
+     * @param size  width and height
+     * @param rooms number of rooms
+     * @param seed
+     * @return tile types indexed by [x][y]
+     */
+    public static int[][] outposts(int size, int rooms, long seed) {
+        Random random = new Random(seed);
+        int[][] map = new int[size][size];
+        for (int x = 0; x < size; x++) {
+            Arrays.fill(map[x], TileMap.FLOOR);
+        }
+        int entryX = 1;
+        int entryY = 1;
+        for (int room = 0; room < rooms; room++) {
+            int left = random.nextInt(size - 16);
+            int top = random.nextInt(size - 16);
+            for (int i = 0; i < 16; i++) {
+                map[left + i][top] = TileMap.WALL;
+                map[left + i][top + 15] = TileMap.WALL;
+                map[left][top + i] = TileMap.WALL;
+                map[left + 15][top + i] = TileMap.WALL;
+            }
+            map[left + 7][top] = TileMap.FLOOR; // door
+            map[left + 1 + random.nextInt(14)][top + 1 + random.nextInt(14)] = TileMap.ENEMY;
+            map[left + 1 + random.nextInt(14)][top + 1 + random.nextInt(14)] = TileMap.TRAP;
+            entryX = left + 7;
+            entryY = top + 7;
+        }
+        map[entryX][entryY] = TileMap.ENTRY;
+        return map;
+    }
+
+    /**
+     * Writes a map in the format of the level files ("x,y=tileType" per line, floor tiles are left out)
+     *
+     * @param map
+     * @return the content of the .properties file
+     */
+    public static String toProperties(int[][] map) {
+        StringBuilder properties = new StringBuilder();
+        for (int x = 0; x < map.length; x++) {
+            for (int y = 0; y < map[x].length; y++) {
+                if (map[x][y] != TileMap.FLOOR) {
+                    properties.append(x).append(',').append(y).append('=').append(map[x][y]).append('\n');
+                }
+            }
+        }
+        return properties.toString();
+    }
+
+    /**
+     * Returns the content of a level file, or of a synthetic map for names like "synthetic-512" or "outposts-4096"
+     *
+     * @param name level name ("level-1" to "level-5"), "synthetic-" or "outposts-" followed by the map size
+     * @throws IOException if the level file can't be read
+     */
+    public static String load(String name) throws IOException {
+        if (name.startsWith("synthetic-")) {
+            int size = Integer.parseInt(name.substring("synthetic-".length()));
+            return toProperties(generate(size, size, 42));
+        }
+        if (name.startsWith("outposts-")) {
+            int size = Integer.parseInt(name.substring("outposts-".length()));
+            // about 1% of the tiles are walls, far below the density of a sparse map
+            return toProperties(outposts(size, size * size / 6000, 42));
+        }
+        Path file = Paths.get(System.getProperty(MAPS_PROPERTY, "maps"), name + ".properties");
+        return new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Copies a map, so a benchmark can change it without affecting the next one
+     */
+    public static int[][] copy(int[][] map) {
+        int[][] copy = new int[map.length][];
+        for (int x = 0; x < map.length; x++) {
+            copy[x] = map[x].clone();
+        }
+        return copy;
+    }
+}
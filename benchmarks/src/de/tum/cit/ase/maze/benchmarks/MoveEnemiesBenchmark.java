@@ -0,0 +1,71 @@
+package de.tum.cit.ase.maze.benchmarks;
+
+import de.tum.cit.ase.maze.simulation.EnemyScheduler;
+import de.tum.cit.ase.maze.simulation.FlowField;
+import de.tum.cit.ase.maze.simulation.TileMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one enemy move of every enemy on the map, randomly and chasing a player through a flow field,
+ * with an EnemyScheduler whose radii cover the whole map, and with the default radii of the Simulation,
+ * which only move the enemies near the player every time.
+ * The enemies keep walking between invocations, so the number of enemies stays the same.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveEnemiesBenchmark {
+
+    @Param({"64", "256", "1024"})
+    public int size;
+
+    private final TileMap tileMap = new TileMap();
+    private final Random random = new Random(7);
+    private FlowField field;
+    private EnemyScheduler allEnemies;
+    private EnemyScheduler scheduler;
+    private int step = 0;
+
+    @Setup
+    public void setup() {
+        tileMap.setTiles(MapGenerator.generate(size, size, 42));
+        field = new FlowField(tileMap, FlowField.DEFAULT_RADIUS);
+        allEnemies = new EnemyScheduler(tileMap, size, size);
+        scheduler = new EnemyScheduler(tileMap, EnemyScheduler.DEFAULT_ACTIVE_RADIUS,
+                EnemyScheduler.DEFAULT_REDUCED_RADIUS);
+    }
+
+    @Benchmark
+    public TileMap moveEnemies() {
+        allEnemies.moveEnemies(0, 0, random, null, null);
+        return tileMap;
+    }
+
+    /**
+     * The player walks along the diagonal and changes tiles every invocation, so the field is searched every time
+     */
+    @Benchmark
+    public TileMap chaseEnemies() {
+        step = (step + 1) % size;
+        field.update(step, step);
+        allEnemies.moveEnemies(step, step, random, field, null);
+        return tileMap;
+    }
+
+    /**
+     * Same walk as chaseEnemies, regions far from the player move less often or sleep
+     */
+    @Benchmark
+    public TileMap scheduleEnemies() {
+        step = (step + 1) % size;
+        field.update(step, step);
+        scheduler.moveEnemies(step, step, random, field, null);
+        return tileMap;
+    }
+}
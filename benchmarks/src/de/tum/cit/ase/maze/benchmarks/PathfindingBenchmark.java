@@ -0,0 +1,91 @@
+package de.tum.cit.ase.maze.benchmarks;
+
+import de.tum.cit.ase.maze.simulation.EntityList;
+import de.tum.cit.ase.maze.simulation.HierarchicalPathfinder;
+import de.tum.cit.ase.maze.simulation.TileMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures path queries of the HierarchicalPathfinder on large maps: from a key to the exit
+ * at the right border, and from random floor tiles (the player) to a key. The local update
+ * changes a wall next to the corridor to the exit every invocation, so its cluster is searched again.
+ * A heuristic weight above 100 percent expands fewer nodes, at the cost of longer paths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfindingBenchmark {
+    private static final int QUERIES = 64;
+
+    @Param({"1024", "4096"})
+    public int size;
+
+    @Param({"100", "125"})
+    public int heuristicWeight;
+
+    private final TileMap tileMap = new TileMap();
+    private HierarchicalPathfinder pathfinder;
+    private final int[] keys = new int[QUERIES];
+    private final int[] players = new int[QUERIES];
+    private int exit;
+    private int query = 0;
+
+    @Setup
+    public void setup() {
+        tileMap.setTiles(MapGenerator.generate(size, size, 42));
+        // the generated exit may be walled in, a corridor connects it to the rest of the map
+        for (int x = size - 2; x > size - 16; x--) {
+            if (tileMap.getTile(x, size / 2) == TileMap.WALL) {
+                tileMap.setTile(x, size / 2, TileMap.FLOOR);
+            }
+        }
+        pathfinder = new HierarchicalPathfinder(tileMap, HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE, heuristicWeight);
+        pathfinder.build(Long.MAX_VALUE);
+        exit = tileMap.getEntities(TileMap.EXIT).get(0);
+        EntityList keyList = tileMap.getEntities(TileMap.KEY);
+        Random random = new Random(3);
+        for (int i = 0; i < QUERIES; i++) {
+            keys[i] = keyList.get(random.nextInt(keyList.size()));
+            players[i] = tileMap.getLayer(TileMap.FLOOR).select(random.nextInt(size * size / 2));
+        }
+    }
+
+    @Benchmark
+    public int[] keyToExit() {
+        query = (query + 1) % QUERIES;
+        return pathfinder.findPath(keys[query], exit);
+    }
+
+    /**
+     * Only the openings along the way, the tiles are searched later part by part
+     */
+    @Benchmark
+    public int[] keyToExitWaypoints() {
+        query = (query + 1) % QUERIES;
+        return pathfinder.findWaypoints(keys[query], exit);
+    }
+
+    @Benchmark
+    public int[] playerToKey() {
+        query = (query + 1) % QUERIES;
+        return pathfinder.findPath(players[query], keys[query]);
+    }
+
+    /**
+     * Toggles the wall below the corridor to the exit, then asks for a path to the exit
+     */
+    @Benchmark
+    public int[] keyToExitAfterChange() {
+        query = (query + 1) % QUERIES;
+        int x = size - 2;
+        int y = size / 2 + 1;
+        tileMap.setTile(x, y, tileMap.getTile(x, y) == TileMap.WALL ? TileMap.FLOOR : TileMap.WALL);
+        return pathfinder.findPath(keys[query], exit);
+    }
+}
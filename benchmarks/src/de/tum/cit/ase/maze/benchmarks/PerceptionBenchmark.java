@@ -0,0 +1,65 @@
+package de.tum.cit.ase.maze.benchmarks;
+
+import de.tum.cit.ase.maze.simulation.EnemyPerception;
+import de.tum.cit.ase.maze.simulation.TileMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one perception update of all enemies, as done before every enemy move of the Simulation.
+ * The crowded map has an enemy on every other floor tile around the player, so the ray budget
+ * is used up and results have to be shared through the cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerceptionBenchmark {
+    private static final int CROWD_RADIUS = 64;
+
+    @Param({"256", "1024"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean crowded;
+
+    private final TileMap tileMap = new TileMap();
+    private EnemyPerception perception;
+    private int step = 0;
+
+    @Setup
+    public void setup() {
+        tileMap.setTiles(MapGenerator.generate(size, size, 42));
+        if (crowded) {
+            int center = size / 2;
+            for (int x = center - CROWD_RADIUS; x <= center + CROWD_RADIUS; x++) {
+                for (int y = center - CROWD_RADIUS; y <= center + CROWD_RADIUS; y++) {
+                    if ((x + y) % 2 == 0 && tileMap.getTile(x, y) == TileMap.FLOOR) {
+                        tileMap.setTile(x, y, TileMap.ENEMY);
+                    }
+                }
+            }
+        }
+        perception = new EnemyPerception(tileMap, EnemyPerception.DEFAULT_MIN_RADIUS,
+                EnemyPerception.DEFAULT_MAX_RADIUS, EnemyPerception.DEFAULT_RAY_BUDGET);
+    }
+
+    /**
+     * The player changes tiles every invocation, so the cached rays are dropped every time
+     */
+    @Benchmark
+    public int playerWalking() {
+        step = (step + 1) % 32;
+        perception.update(size / 2 + step, size / 2);
+        return perception.countAggressive();
+    }
+
+    @Benchmark
+    public int playerStanding() {
+        perception.update(size / 2, size / 2);
+        return perception.countAggressive();
+    }
+}
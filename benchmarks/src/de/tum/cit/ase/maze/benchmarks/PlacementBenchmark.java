@@ -0,0 +1,47 @@
+package de.tum.cit.ase.maze.benchmarks;
+
+import de.tum.cit.ase.maze.simulation.TileMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures placing a heart on a random floor tile of a nearly full map,
+ * where most random tiles are not floor.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlacementBenchmark {
+
+    @Param({"256", "1024"})
+    public int size;
+
+    // floor tiles per million tiles
+    @Param({"10000", "1000"})
+    public int floorPerMillion;
+
+    private final TileMap nearlyFull = new TileMap();
+    private final Random random = new Random(11);
+
+    @Setup
+    public void setup() {
+        int floorTiles = Math.max(1, (int) ((long) size * size * floorPerMillion / 1_000_000));
+        nearlyFull.setTiles(MapGenerator.nearlyFull(size, size, floorTiles, 42));
+    }
+
+    /**
+     * placeHeartRandomly only places one heart per map, so this places a heart
+     * the same way and removes it again, which keeps the number of floor tiles the same
+     */
+    @Benchmark
+    public int placeHeartRandomly() {
+        int cell = nearlyFull.placeRandomly(TileMap.HEART, random);
+        nearlyFull.setTile(nearlyFull.cellX(cell), nearlyFull.cellY(cell), TileMap.FLOOR);
+        return cell;
+    }
+}
@@ -0,0 +1,71 @@
+package de.tum.cit.ase.maze.benchmarks;
+
+import de.tum.cit.ase.maze.simulation.TileMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the collision queries the player runs every tick, at random positions inside the map,
+ * and the search for the entry.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+    private static final int POSITIONS = 4096;
+
+    @Param({"level-4", "synthetic-1024", "outposts-4096"})
+    public String map;
+
+    private final TileMap tileMap = new TileMap();
+    private final float[] xPositions = new float[POSITIONS];
+    private final float[] yPositions = new float[POSITIONS];
+
+    @Setup
+    public void setup() throws Exception {
+        tileMap.load(new StringReader(MapGenerator.load(map)));
+        Random random = new Random(3);
+        float maxX = tileMap.getWidth() * TileMap.TILE_SIZE;
+        float maxY = tileMap.getHeight() * TileMap.TILE_SIZE;
+        for (int i = 0; i < POSITIONS; i++) {
+            xPositions[i] = random.nextFloat() * maxX;
+            yPositions[i] = random.nextFloat() * maxY;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void isWall(Blackhole blackhole) {
+        for (int i = 0; i < POSITIONS; i++) {
+            blackhole.consume(tileMap.isWall(xPositions[i], yPositions[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void isTrap(Blackhole blackhole) {
+        for (int i = 0; i < POSITIONS; i++) {
+            blackhole.consume(tileMap.isTrap(xPositions[i], yPositions[i]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public void isEnemy(Blackhole blackhole) {
+        for (int i = 0; i < POSITIONS; i++) {
+            blackhole.consume(tileMap.isEnemy(xPositions[i], yPositions[i]));
+        }
+    }
+
+    @Benchmark
+    public int findEntryPoint() {
+        return tileMap.findEntryCell();
+    }
+}
@@ -0,0 +1,61 @@
+package de.tum.cit.ase.maze;
+
+/**
+ * The FixedTimestep class turns the variable frame time into a number of fixed-length simulation ticks.
+ * Left over time is kept for the next frame and is available as interpolation factor for rendering.
+ */
+public class FixedTimestep {
+    public static final int DEFAULT_TICK_RATE = 60;
+    // after a very long frame (loading, window dragged) the remaining time is dropped instead of caught up
+    public static final int MAX_TICKS_PER_FRAME = 8;
+
+    private float tickLength;
+    private float accumulator = 0f;
+
+    /**
+     * @param tickRate simulation ticks per second
+     */
+    public FixedTimestep(int tickRate) {
+        setTickRate(tickRate);
+    }
+
+    /**
+     * Adds the frame time and returns how many ticks have to be simulated
+     *
+     * @param delta time elapsed since the last frame rendered
+     * @return number of ticks to run, at most MAX_TICKS_PER_FRAME
+     */
+    public int advance(float delta) {
+        accumulator += delta;
+        int ticks = (int) (accumulator / tickLength);
+        if (ticks > MAX_TICKS_PER_FRAME) {
+            ticks = MAX_TICKS_PER_FRAME;
+            accumulator = 0f;
+        } else {
+            accumulator -= ticks * tickLength;
+        }
+        return ticks;
+    }
+
+    /**
+     * @return how far the time is between the last tick and the next one, between 0 and 1
+     */
+    public float getAlpha() {
+        return Math.min(1f, accumulator / tickLength);
+    }
+
+    public float getTickLength() {
+        return tickLength;
+    }
+
+    public void setTickRate(int tickRate) {
+        if (tickRate <= 0) {
+            throw new IllegalArgumentException("tick rate must be positive: " + tickRate);
+        }
+        this.tickLength = 1f / tickRate;
+    }
+
+    public void reset() {
+        accumulator = 0f;
+    }
+}
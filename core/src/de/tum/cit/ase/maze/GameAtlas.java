@@ -0,0 +1,58 @@
+package de.tum.cit.ase.maze;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import de.tum.cit.ase.maze.Objects.GameObject;
+
+/**
+ * The GameAtlas class packs all gameplay sprite sheets into one texture when the game starts.
+ * Drawing from a single texture means the SpriteBatch doesn't have to flush on every texture switch.
+ * Every sheet is available as a region named after its file (without ".png").
+ */
+public class GameAtlas {
+    public static final int PAGE_SIZE = 1024;
+
+    // sheets used while playing, the menu images are not packed
+    private static final String[] SHEETS = {
+            "basictiles", "basictiles2", "floor", "key-white", "keys", "mobs", "things",
+            "slime-Sheet", "lem", "heart1", "character", "characteratt", "objects"
+    };
+
+    private final TextureAtlas atlas;
+
+    public GameAtlas() {
+        // padding between the sheets keeps neighbouring sheets from bleeding into each other
+        PixmapPacker packer = new PixmapPacker(PAGE_SIZE, PAGE_SIZE, Pixmap.Format.RGBA8888, 2, false);
+        for (String sheet : SHEETS) {
+            Pixmap pixmap = new Pixmap(Gdx.files.internal(sheet + ".png"));
+            packer.pack(sheet, pixmap);
+            pixmap.dispose();
+        }
+        atlas = packer.generateTextureAtlas(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest, false);
+        packer.dispose();
+    }
+
+    /**
+     * Returns the region holding a whole sheet
+     *
+     * @param sheet file name of the sheet without ".png"
+     * @return
+     */
+    public TextureRegion getSheet(String sheet) {
+        TextureRegion region = atlas.findRegion(sheet);
+        if (region == null) {
+            throw new GdxRuntimeException("Sheet not packed into the game atlas: " + sheet);
+        }
+        return region;
+    }
+
+    public void dispose() {
+        GameObject.releaseAllAnimations();
+        atlas.dispose();
+    }
+}
@@ -5,20 +5,23 @@ import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.*;
-import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.utils.ScreenUtils;
 import de.tum.cit.ase.maze.Objects.Key;
+import de.tum.cit.ase.maze.simulation.Controls;
+import de.tum.cit.ase.maze.simulation.Simulation;
+import de.tum.cit.ase.maze.simulation.SimulationListener;
 
 import static com.badlogic.gdx.scenes.scene2d.actions.Actions.addAction;
 
 
 /**
  * The GameScreen class is responsible for rendering the gameplay screen.
- * It handles the game logic and rendering of the game elements.
+ * The game logic runs in a Simulation, this class feeds it the input and renders
+ * the game elements and plays the sounds for its events.
  */
-public class GameScreen implements Screen {
+public class GameScreen implements Screen, SimulationListener {
 
     private Character character;
     private final MazeRunnerGame game;
@@ -26,21 +29,27 @@ public class GameScreen implements Screen {
     private MapClass map;
     private final BitmapFont font;
     private float sinusInput = 0f;
-    private float characterSpeed = 375f;
     private Animation<TextureRegion> currentAnimation;
     private boolean isMoving = false;
-    private float exitTimeCounter = 0f;
-    private boolean isExiting = false;
     private long startTime = System.currentTimeMillis();
-    private Texture keysTexture;
-    private int numOfKeysCollected = 0;
+    private final HudRenderer hud;
+    private final GuidanceRenderer guidance;
+    private Simulation simulation;
     private boolean isFlickering = false;
     private float flickerTime = 0;
     private final float duration = 0.1f; // Duration for each flicker
     private final float totalFlickerTime = 1f;
     private boolean isAttacking;
     private Sound swoosh;
+    private Sound hitSound;
     private boolean playedSound;
+    private int worldRenderCalls;
+    private final FixedTimestep timestep = new FixedTimestep(FixedTimestep.DEFAULT_TICK_RATE);
+    // character position before the last tick and the interpolated position that is drawn
+    private float previousX;
+    private float previousY;
+    private float renderX;
+    private float renderY;
 
 
     /**
@@ -50,8 +59,8 @@ public class GameScreen implements Screen {
      */
     public GameScreen(MazeRunnerGame game) {
         this.game = game;
-        keysTexture = new Texture(Gdx.files.internal("keys.png"));
         swoosh = Gdx.audio.newSound(Gdx.files.internal("sounds/swosh-05.mp3"));
+        hitSound = Gdx.audio.newSound(Gdx.files.internal("sounds/laser.mp3"));
         if (this.map == null) {
             this.map = new MapClass();
         } else {
@@ -72,13 +81,19 @@ public class GameScreen implements Screen {
 
         // Get the font from the game's skin
         font = game.getSkin().getFont("font");
+        hud = new HudRenderer(game, font);
+        guidance = new GuidanceRenderer(game);
+        currentAnimation = game.getCharacterDownAnimation();
+        hud.resize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
 
         //loading textures
-        map.loadTextures();
+        map.loadTextures(game.getAtlas());
         map.loadMap(Gdx.files.internal("maps/level-" + game.getCurrentLevel() + ".properties"));
         character.setToEntryPoint(map);
         map.placeLemonRandomly();
         map.placeHeartRandomly();
+        createSimulation();
+        snapCharacterPosition();
 
     }
 
@@ -88,7 +103,15 @@ public class GameScreen implements Screen {
 
         // Check for escape key press to go back to the menu
         pauseGame();
-        buttonInput();
+
+        // the game logic runs in fixed ticks, independent of the frame rate
+        int ticks = timestep.advance(delta);
+        for (int i = 0; i < ticks && game.getScreen() == this; i++) {
+            update(timestep.getTickLength());
+        }
+        if (game.getScreen() != this) {
+            return; // the level was finished during the update
+        }
 
         ScreenUtils.clear(0, 0, 0, 1); // Clear the screen
         camera.update(); // Update the camera
@@ -101,14 +124,22 @@ public class GameScreen implements Screen {
 //        System.out.println("sinusInput " + sinusInput);
 //        System.out.println("x:" + character.getxPosition() + " y:" + character.getyPosition());
 
+        // draw the character between its last two simulated positions
+        float alpha = timestep.getAlpha();
+        renderX = previousX + (character.getxPosition() - previousX) * alpha;
+        renderY = previousY + (character.getyPosition() - previousY) * alpha;
 
         adjustCameraPosition();
 
+        // static tiles are cached, so they are drawn before the sprite batch starts
+        map.renderStaticLayer(camera);
+
         // Set up and begin drawing with the sprite batch
         game.getSpriteBatch().setProjectionMatrix(camera.combined);
         game.getSpriteBatch().begin(); // Important to call this before drawing anything
 
-        map.render(game.getSpriteBatch());
+        map.render(game.getSpriteBatch(), camera);
+        guidance.render(game.getSpriteBatch(), camera, simulation);
 
 //is inside of method because of the delta thing
         if (character.isDamaged() && !isFlickering) {
@@ -125,48 +156,95 @@ public class GameScreen implements Screen {
         }
         drawCharacter();
 
-        game.getSpriteBatch().setProjectionMatrix(new Matrix4().setToOrtho2D(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight()));
+        // flush the map and character before the HUD, so this counts the gameplay draw calls
+        game.getSpriteBatch().flush();
+        worldRenderCalls = game.getSpriteBatch().renderCalls;
 
+        hud.render(game.getSpriteBatch(), character.getLives(), sinusInput, simulation.getKeysCollected(),
+                System.currentTimeMillis() - startTime, game.getCurrentLevel(), Gdx.input.isKeyPressed(Input.Keys.TAB));
 
-        for (int i = 0; i < 70 * character.getLives(); i += 70) {
-            game.getSpriteBatch().draw(game.loadHeartAnimation().getKeyFrame(sinusInput, true), i, Gdx.graphics.getHeight() - 70, 70, 70);
+        game.getSpriteBatch().end(); // Important to call this after drawing everything
+    }
+
+    /**
+     * Runs one simulation tick with the current input and finishes the level once the simulation says so.
+     *
+     * @param tickLength length of a tick in seconds
+     */
+    private void update(float tickLength) {
+        previousX = character.getxPosition();
+        previousY = character.getyPosition();
+
+        int controls = buttonInput();
+        if (isAttacking) {
+            if (!playedSound) {
+                swoosh.play();
+                playedSound = true;
+            }
+        } else {
+            playedSound = false;
         }
 
-        tabMenu();
-        drawKeys();
-        checkForKeyCollision();
-        checkForHeartCollision();
-        checkForLemonCollision();
-        checkForEnemyCollision();
+        simulation.tick(tickLength, controls);
 
-        character.update(delta);
-        checkForExitCollision();
+        if (simulation.isExiting()) {
+            sinusInput += tickLength;
+        }
+        if (simulation.isLevelFinished()) {
+            game.goToNextLevel();
+            if (game.getCurrentLevel() <= 5) {
+                game.getLevelUp().play();
+            }
+        }
+    }
 
-        game.getSpriteBatch().end(); // Important to call this after drawing everything
+    /**
+     * Creates the simulation for the current map and character
+     */
+    private void createSimulation() {
+        if (simulation != null) {
+            simulation.detach();
+        }
+        simulation = new Simulation(map.getTileMap(), character, MathUtils.random);
+        simulation.setListener(this);
+        guidance.setSimulation(simulation);
+    }
+
+    /**
+     * Makes the drawn position jump to the character, for example after it was placed on the entry
+     */
+    private void snapCharacterPosition() {
+        previousX = character.getxPosition();
+        previousY = character.getyPosition();
+        renderX = previousX;
+        renderY = previousY;
+        timestep.reset();
     }
 
     /**
-     * Based on user key input, moves the character and gets correct animation.
+     * Based on user key input, gets the correct animation and the buttons for the simulation.
+     *
+     * @return buttons held, see Controls
      */
-    public void buttonInput() {
-        float moveAmount = Gdx.graphics.getDeltaTime() * characterSpeed;
+    public int buttonInput() {
+        int controls = 0;
         currentAnimation = game.getCharacterDownAnimation();
 
         if (Gdx.input.isKeyPressed(Input.Keys.LEFT) || Gdx.input.isKeyPressed(Input.Keys.A)) {
             currentAnimation = game.getCharacterLeftAnimation();
-            character.moveLeft(moveAmount);
+            controls |= Controls.LEFT;
             isMoving = true;
         } else if (Gdx.input.isKeyPressed(Input.Keys.RIGHT) || Gdx.input.isKeyPressed(Input.Keys.D)) {
             currentAnimation = game.getCharacterRightAnimation();
-            character.moveRight(moveAmount);
+            controls |= Controls.RIGHT;
             isMoving = true;
         } else if (Gdx.input.isKeyPressed(Input.Keys.UP) || Gdx.input.isKeyPressed(Input.Keys.W)) {
             currentAnimation = game.getCharacterUpAnimation();
-            character.moveUp(moveAmount);
+            controls |= Controls.UP;
             isMoving = true;
         } else if (Gdx.input.isKeyPressed(Input.Keys.DOWN) || Gdx.input.isKeyPressed(Input.Keys.S)) {
             currentAnimation = game.getCharacterDownAnimation();
-            character.moveDown(moveAmount);
+            controls |= Controls.DOWN;
             isMoving = true;
         } else {
             isMoving = false;
@@ -189,137 +267,35 @@ public class GameScreen implements Screen {
         } else {
             isAttacking = false;
         }
-
-    }
-
-    private void checkForEnemyCollision() {
-        int characterTileX = (int) ((character.getxPosition() + 12) / 64);
-        int characterTileY = (int) ((character.getyPosition() + 12) / 64);
-
         if (isAttacking) {
-            if (!playedSound) {
-                swoosh.play();
-                playedSound = true;
-            }
-
-            for (int x = characterTileX - 1; x <= characterTileX + 1; x++) {
-                for (int y = characterTileY - 1; y <= characterTileY + 1; y++) {
-                    if (map.isWithinBounds(x, y) && map.getMap()[x][y] == MapClass.ENEMY) {
-                        map.removeEnemy(x, y);
-                    }
-                }
-            }
-        } else {
-            playedSound = false;
+            controls |= Controls.ATTACK;
         }
+        return controls;
     }
 
-    /**
-     * Checks if the position of the character corresponds to the tile
-     * of a key and adds one key to the character's inventory.
-     */
-    public void checkForKeyCollision() {
-        int characterTileX = (int) ((character.getxPosition() + 12) / 64);
-        int characterTileY = (int) ((character.getyPosition() + 12) / 64);
-
-        for (int x = characterTileX; x <= characterTileX; x++) {
-            for (int y = characterTileY; y <= characterTileY; y++) {
-                if (map.getTile(x, y) == MapClass.KEY) {
-                    character.setHasKey(true);
-                    map.removeKey(x, y);
-                    numOfKeysCollected++;
-                }
-            }
-        }
+    @Override
+    public void keyCollected(int x, int y) {
+        map.getKeySound().play();
     }
 
-    /**
-     * Checks if the position of the character corresponds to the tile
-     * of a heart and adds one live to the character's health.
-     */
-    public void checkForHeartCollision() {
-        int characterTileX = (int) ((character.getxPosition() + 12) / 64);
-        int characterTileY = (int) ((character.getyPosition() + 12) / 64);
-
-        for (int x = characterTileX; x <= characterTileX; x++) {
-            for (int y = characterTileY; y <= characterTileY; y++) {
-                if (map.getTile(x, y) == MapClass.HEART) {
-                    if (character.getLives() <= 5) {
-                        character.increaseHealth(1); // Assuming this method exists in Character
-                    }
-                    map.removeHeart(x, y);
-                }
-            }
-
-        }
+    @Override
+    public void heartCollected(int x, int y) {
+        map.getHeartSound().play();
     }
 
-    /**
-     * Checks if the position of the character corresponds to the tile
-     * of a lemon and adds the ability to walk faster.
-     */
-    public void checkForLemonCollision() {
-        int characterTileX = (int) ((character.getxPosition() + 12) / 64);
-        int characterTileY = (int) ((character.getyPosition() + 12) / 64);
-
-        for (int x = characterTileX; x <= characterTileX; x++) {
-            for (int y = characterTileY; y <= characterTileY; y++) {
-                if (map.getTile(x, y) == MapClass.LEMON) {
-                    characterSpeed *= 1.5f;
-                    map.removeLemon(x, y);
-                }
-            }
-
-        }
+    @Override
+    public void lemonCollected(int x, int y) {
+        map.getLemonSound().play();
     }
 
-    /**
-     * Checks if the position of the character corresponds to the tile
-     * of an exit, adds a timer between this and next level and
-     * goes to next level.
-     */
-    public void checkForExitCollision() {
-        float x = character.getxPosition();
-        float y = character.getyPosition();
-        float[][] adjustmentAreas = {
-
-                // array with coordinates around exit areas on right side of map
-                {2400, 2500, 550, 600, 64, 0},
-                {0, 100, 1250, 1300, 0, 64},
-                {1150, 1200, 800, 850, 64, 0}
-        };
-
-        // check if character is within any of the defined areas and adjust
-        for (float[] area : adjustmentAreas) {
-            if (x >= area[0] && x <= area[1] && y >= area[2] && y <= area[3]) {
-                x += area[4]; // adjust X coordinate
-                y += area[5]; // adjust Y coordinate
-                break; // break after finding the first matching area
-            }
-        }
-        int characterTileX = (int) (x / 64);
-        int characterTileY = (int) (y / 64);
-//        System.out.println(characterTileX + " " + characterTileY);
-
-        if (map.getTile(characterTileX, characterTileY) == MapClass.EXIT && character.isHasKey()) {
-            numOfKeysCollected = 0;
-            isExiting = true;
-            map.removeExit(characterTileX, characterTileY);
-        }
-
-        if (isExiting) {
-            sinusInput += Gdx.graphics.getDeltaTime();
-            exitTimeCounter += Gdx.graphics.getDeltaTime();
+    @Override
+    public void exitOpened(int x, int y) {
+        map.getExplosionSound().play();
+    }
 
-        }
-        if (exitTimeCounter >= 1f) {
-            game.goToNextLevel();
-            isExiting = false;
-            exitTimeCounter = 0;
-            if (game.getCurrentLevel() <= 5) {
-                game.getLevelUp().play();
-            }
-        }
+    @Override
+    public void playerDamaged(int livesLeft) {
+        hitSound.play();
     }
 
     /**
@@ -327,24 +303,10 @@ public class GameScreen implements Screen {
      */
 
     public void adjustCameraPosition() {
-        camera.position.set(character.getxPosition(), character.getyPosition(), 0);
+        camera.position.set(renderX, renderY, 0);
         camera.update();
     }
 
-    /**
-     * When TAB is pressed, the time elapsed in the current level is displayed on the top left side of the screen,
-     * as well as the number of the level.
-     */
-    private void tabMenu() {
-        if (Gdx.input.isKeyPressed(Input.Keys.TAB)) {
-            font.draw(game.getSpriteBatch(), "time elapsed: " + ((System.currentTimeMillis() - startTime) / 1000f),
-                    Gdx.graphics.getWidth() * 0.015f, Gdx.graphics.getHeight() * 0.888f);
-            font.draw(game.getSpriteBatch(), "current level: " + game.getCurrentLevel(),
-                    Gdx.graphics.getWidth() * 0.015f, Gdx.graphics.getHeight() * 0.83f);
-
-        }
-    }
-
     /**
      * Draws the character based on the animation (walking or attacking).
      * If the character is damaged, it will flicker between a visible and an invisible state.
@@ -355,16 +317,16 @@ public class GameScreen implements Screen {
                     || currentAnimation == game.getCharacterAttackUpAnimation() || currentAnimation == game.getCharacterAttackDownAnimation()) {
                 game.getSpriteBatch().draw(
                         isMoving ? currentAnimation.getKeyFrame(sinusInput, true) : currentAnimation.getKeyFrames()[0],
-                        character.getxPosition() - 32,
-                        character.getyPosition(),
+                        renderX - 32,
+                        renderY,
                         128,
                         128
                 );
             } else {
                 game.getSpriteBatch().draw(
                         isMoving ? currentAnimation.getKeyFrame(sinusInput, true) : currentAnimation.getKeyFrames()[0],
-                        character.getxPosition(),
-                        character.getyPosition(),
+                        renderX,
+                        renderY,
                         64,
                         128
                 );
@@ -372,14 +334,6 @@ public class GameScreen implements Screen {
         }
     }
 
-    /**
-     * Keys are drawn in the top right corner of the screen.
-     */
-    private void drawKeys() {
-        game.getSpriteBatch().draw(keysTexture, Gdx.graphics.getWidth() - 224, Gdx.graphics.getHeight() - 62, 64, 64);
-        font.draw(game.getSpriteBatch(), "Keys: " + numOfKeysCollected, Gdx.graphics.getWidth() - 148, Gdx.graphics.getHeight() - 20);
-    }
-
     /**
      * Updates the map whenever a new map object is created.
      *
@@ -387,6 +341,7 @@ public class GameScreen implements Screen {
      */
     public void updateMap(MapClass newMap) {
         this.map = newMap;
+        createSimulation();
     }
 
     /**
@@ -396,6 +351,8 @@ public class GameScreen implements Screen {
      */
     public void updateCharacter(Character characterNew) {
         this.character = characterNew;
+        createSimulation();
+        snapCharacterPosition();
     }
 
     /**
@@ -416,6 +373,7 @@ public class GameScreen implements Screen {
     @Override
     public void resize(int width, int height) {
         camera.setToOrtho(false);
+        hud.resize(width, height);
     }
 
     @Override
@@ -440,23 +398,39 @@ public class GameScreen implements Screen {
     public void dispose() {
         font.dispose();
         map.dispose();
-        keysTexture.dispose();
+        swoosh.dispose();
+        hitSound.dispose();
     }
 
     public boolean isExiting() {
-        return isExiting;
+        return simulation.isExiting();
     }
 
     public void setExiting(boolean exiting) {
-        isExiting = exiting;
+        simulation.setExiting(exiting);
     }
 
     public int getNumOfKeysCollected() {
-        return numOfKeysCollected;
+        return simulation.getKeysCollected();
     }
 
     public void setNumOfKeysCollected(int numOfKeysCollected) {
-        this.numOfKeysCollected = numOfKeysCollected;
+        simulation.setKeysCollected(numOfKeysCollected);
+    }
+
+    public Simulation getSimulation() {
+        return simulation;
+    }
+
+    /**
+     * @return number of SpriteBatch flushes needed for the map and character in the last frame
+     */
+    public int getWorldRenderCalls() {
+        return worldRenderCalls;
+    }
+
+    public FixedTimestep getTimestep() {
+        return timestep;
     }
 
     public float getSinusInput() {
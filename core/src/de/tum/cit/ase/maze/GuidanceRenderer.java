@@ -0,0 +1,225 @@
+package de.tum.cit.ase.maze;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import de.tum.cit.ase.maze.simulation.ChunkedTileStore;
+import de.tum.cit.ase.maze.simulation.EntityList;
+import de.tum.cit.ase.maze.simulation.GuidancePlanner;
+import de.tum.cit.ase.maze.simulation.HierarchicalPathfinder;
+import de.tum.cit.ase.maze.simulation.Simulation;
+import de.tum.cit.ase.maze.simulation.TileMap;
+
+import java.util.Arrays;
+
+/**
+ * The GuidanceRenderer class draws the shortest path from the character to the next key,
+ * or to the exit once the character carries a key, as a trail of small marks on the floor.
+ * The path is repaired by a GuidancePlanner every frame within BUDGET_NANOS, so walking
+ * or removing keys and enemies doesn't plan the whole path again.
+ * The planner only works on maps in a dense store of at most GuidancePlanner.MAX_TILES tiles; on larger
+ * and sparse maps a HierarchicalPathfinder finds the way to the goal closest in a straight line instead.
+ * Its graph is built within BUDGET_NANOS per frame, no path is drawn until it is complete. The way is only searched again when the character leaves it, the goal is gone
+ * or the map changed; the tiles of the next parts of it are searched as the character walks along.
+ * Chunked maps get no path, building the graph of the pathfinder would read the whole file.
+ */
+public class GuidanceRenderer {
+    public static final long BUDGET_NANOS = 1_000_000; // time the planner, or building the graph of the pathfinder, may take per frame
+    private static final int MARK_SIZE = 16;
+    // tiles of the way of the pathfinder searched ahead of the character
+    private static final int TRAIL_LENGTH = 2 * HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE;
+
+    private final TextureRegion markTexture;
+    private TileMap tiles;
+    // one of the two is used, depending on the store of the map
+    private GuidancePlanner planner;
+    private HierarchicalPathfinder pathfinder;
+
+    // last way of the pathfinder to pathGoal, and the tiles of its parts up to nextWaypoint
+    private int[] waypoints;
+    private int nextWaypoint;
+    private int[] path = new int[2 * TRAIL_LENGTH];
+    private int pathLength = 0;
+    // index in path of the tile the character stands on
+    private int pathPosition = 0;
+    private int pathStart = -1;
+    private int pathGoal = -1;
+    private int pathGoalType = -1;
+    private int solidChanges = -1;
+
+    /**
+     * @param game the main game class, used to access the packed sprite sheets
+     */
+    public GuidanceRenderer(MazeRunnerGame game) {
+        this.markTexture = new TextureRegion(game.getAtlas().getSheet("floor"), 0, 0, 16, 16);
+    }
+
+    /**
+     * Starts planning on the map of a new simulation, the planner of the previous one stops listening to its map
+     *
+     * @param simulation
+     */
+    public void setSimulation(Simulation simulation) {
+        if (planner != null) {
+            planner.detach();
+            planner = null;
+        }
+        if (pathfinder != null) {
+            pathfinder.detach();
+            pathfinder = null;
+        }
+        tiles = simulation.getTiles();
+        waypoints = null;
+        pathLength = 0;
+        pathStart = -1;
+        if (GuidancePlanner.isSupported(tiles)) {
+            planner = new GuidancePlanner(tiles);
+        } else if (!(tiles.getStore() instanceof ChunkedTileStore)) {
+            // the graph is built in render, then only changed clusters are searched again
+            pathfinder = new HierarchicalPathfinder(tiles, HierarchicalPathfinder.DEFAULT_CLUSTER_SIZE);
+        }
+    }
+
+    /**
+     * Repairs the path for the current position of the character and draws the visible part of it
+     *
+     * @param batch      batch with the camera's projection, which has to be started already
+     * @param camera
+     * @param simulation the simulation given to setSimulation
+     */
+    public void render(SpriteBatch batch, OrthographicCamera camera, Simulation simulation) {
+        int goalType = simulation.getPlayer().isHasKey() ? TileMap.EXIT : TileMap.KEY;
+        int first;
+        int last;
+        if (planner != null) {
+            planner.setGoalType(goalType);
+            planner.update(simulation.playerTileX(), simulation.playerTileY(), BUDGET_NANOS);
+            first = 0;
+            last = planner.getPathLength();
+        } else if (pathfinder != null && pathfinder.build(BUDGET_NANOS)) {
+            findPath(simulation.playerTileX(), simulation.playerTileY(), goalType);
+            first = pathPosition;
+            last = pathLength;
+        } else {
+            return;
+        }
+
+        float halfWidth = camera.viewportWidth * camera.zoom / 2 + TileMap.TILE_SIZE;
+        float halfHeight = camera.viewportHeight * camera.zoom / 2 + TileMap.TILE_SIZE;
+        float offset = (TileMap.TILE_SIZE - MARK_SIZE) / 2f;
+
+        batch.setColor(1f, 0.9f, 0.4f, 0.6f);
+        // the first tile is the one the character stands on
+        for (int i = first + 1; i < last; i++) {
+            int cell = planner != null ? planner.getPathCell(i) : path[i];
+            float x = tiles.cellX(cell) * TileMap.TILE_SIZE;
+            float y = tiles.cellY(cell) * TileMap.TILE_SIZE;
+            if (Math.abs(x - camera.position.x) < halfWidth && Math.abs(y - camera.position.y) < halfHeight) {
+                batch.draw(markTexture, x + offset, y + offset, MARK_SIZE, MARK_SIZE);
+            }
+        }
+        batch.setColor(1f, 1f, 1f, 1f);
+    }
+
+    /**
+     * Moves along the last way of the pathfinder if the character is still on it, otherwise searches a new one
+     */
+    private void findPath(int startX, int startY, int goalType) {
+        if (!tiles.isWithinBounds(startX, startY)) {
+            waypoints = null;
+            pathLength = 0;
+            return;
+        }
+        int start = tiles.cellIndex(startX, startY);
+        boolean goalRemains = pathGoal >= 0 && tiles.getTile(tiles.cellX(pathGoal), tiles.cellY(pathGoal)) == goalType;
+        boolean valid = waypoints != null && goalType == pathGoalType && goalRemains
+                && solidChanges == pathfinder.getSolidChanges();
+        if (valid && start == pathStart) {
+            return;
+        }
+        pathStart = start;
+        int position = valid ? indexOf(start) : -1;
+        if (position < 0) {
+            pathGoalType = goalType;
+            solidChanges = pathfinder.getSolidChanges();
+            pathGoal = closest(tiles.getEntities(goalType), startX, startY);
+            waypoints = pathGoal < 0 ? null : pathfinder.findWaypoints(start, pathGoal);
+            pathLength = 0;
+            if (waypoints == null) {
+                return;
+            }
+            path[pathLength++] = start;
+            nextWaypoint = 1;
+            position = 0;
+        }
+        pathPosition = position;
+        extendPath();
+    }
+
+    /**
+     * Searches the tiles of the next parts of the way until TRAIL_LENGTH tiles lie ahead of the character,
+     * the tiles behind it are dropped
+     */
+    private void extendPath() {
+        if (pathLength - pathPosition > TRAIL_LENGTH || nextWaypoint == waypoints.length) {
+            return;
+        }
+        System.arraycopy(path, pathPosition, path, 0, pathLength - pathPosition);
+        pathLength -= pathPosition;
+        pathPosition = 0;
+        while (pathLength <= TRAIL_LENGTH && nextWaypoint < waypoints.length) {
+            int from = waypoints[nextWaypoint - 1];
+            int to = waypoints[nextWaypoint++];
+            if (Math.abs(tiles.cellX(from) - tiles.cellX(to)) + Math.abs(tiles.cellY(from) - tiles.cellY(to)) == 1) {
+                addToPath(to); // a step through an opening
+                continue;
+            }
+            // the two waypoints lie in one cluster, only it is searched
+            int[] part = pathfinder.findPath(from, to);
+            if (part == null) {
+                waypoints = null;
+                pathLength = 0;
+                return;
+            }
+            for (int i = 1; i < part.length; i++) {
+                addToPath(part[i]);
+            }
+        }
+    }
+
+    private void addToPath(int cell) {
+        if (pathLength == path.length) {
+            path = Arrays.copyOf(path, pathLength * 2);
+        }
+        path[pathLength++] = cell;
+    }
+
+    /**
+     * @return index of the cell in the tiles of the way searched so far, -1 if it isn't on it
+     */
+    private int indexOf(int cell) {
+        for (int i = 0; i < pathLength; i++) {
+            if (path[i] == cell) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the cell of the list closest to the tile in a straight line, -1 if the list is empty
+     */
+    private int closest(EntityList cells, int x, int y) {
+        int closest = -1;
+        int closestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < cells.size(); i++) {
+            int cell = cells.get(i);
+            int distance = Math.abs(tiles.cellX(cell) - x) + Math.abs(tiles.cellY(cell) - y);
+            if (distance < closestDistance) {
+                closest = cell;
+                closestDistance = distance;
+            }
+        }
+        return closest;
+    }
+}
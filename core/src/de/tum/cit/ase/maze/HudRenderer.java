@@ -0,0 +1,122 @@
+package de.tum.cit.ase.maze;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Matrix4;
+
+/**
+ * The HudRenderer class draws the lives, the collected keys and the TAB menu on top of the game.
+ * The projection, the heart animation and the text layouts are kept between frames,
+ * so drawing the HUD doesn't create any new objects while the values don't change.
+ */
+public class HudRenderer {
+    private final BitmapFont font;
+    private final TextureRegion keysTexture;
+    private final Animation<TextureRegion> heartAnimation;
+    private final Matrix4 projection = new Matrix4();
+    private int width;
+    private int height;
+
+    private final StringBuilder keysText = new StringBuilder();
+    private final StringBuilder timeText = new StringBuilder();
+    private final StringBuilder levelText = new StringBuilder();
+    private final GlyphLayout keysLayout = new GlyphLayout();
+    private final GlyphLayout timeLayout = new GlyphLayout();
+    private final GlyphLayout levelLayout = new GlyphLayout();
+    // values the layouts were built for, -1 forces the first build
+    private int shownKeys = -1;
+    private long shownMillis = -1;
+    private int shownLevel = -1;
+
+    /**
+     * @param game the main game class, used to access the packed sprite sheets and the heart animation
+     * @param font font for the HUD texts
+     */
+    public HudRenderer(MazeRunnerGame game, BitmapFont font) {
+        this.font = font;
+        this.keysTexture = game.getAtlas().getSheet("keys");
+        this.heartAnimation = game.getHeartAnimation();
+    }
+
+    /**
+     * Updates the projection to the new screen size
+     *
+     * @param width  screen width in pixels
+     * @param height screen height in pixels
+     */
+    public void resize(int width, int height) {
+        this.width = width;
+        this.height = height;
+        projection.setToOrtho2D(0, 0, width, height);
+    }
+
+    /**
+     * Draws the HUD with the given batch, which has to be started already
+     *
+     * @param lives          number of hearts to draw
+     * @param animationTime  time used for the heart animation
+     * @param keysCollected  number of keys shown in the top right corner
+     * @param elapsedMillis  time spent in the current level
+     * @param level          number of the current level
+     * @param showTabMenu    whether the time and level are shown
+     */
+    public void render(SpriteBatch batch, int lives, float animationTime, int keysCollected,
+                       long elapsedMillis, int level, boolean showTabMenu) {
+        batch.setProjectionMatrix(projection);
+
+        TextureRegion heartFrame = heartAnimation.getKeyFrame(animationTime, true);
+        for (int i = 0; i < 70 * lives; i += 70) {
+            batch.draw(heartFrame, i, height - 70, 70, 70);
+        }
+
+        if (showTabMenu) {
+            drawTabMenu(batch, elapsedMillis, level);
+        }
+        drawKeys(batch, keysCollected);
+    }
+
+    /**
+     * Draws the time elapsed in the current level and the number of the level
+     */
+    private void drawTabMenu(SpriteBatch batch, long elapsedMillis, int level) {
+        if (elapsedMillis != shownMillis) {
+            shownMillis = elapsedMillis;
+            long millis = elapsedMillis % 1000;
+            timeText.setLength(0);
+            timeText.append("time elapsed: ").append(elapsedMillis / 1000).append('.');
+            if (millis < 100) {
+                timeText.append('0');
+            }
+            if (millis < 10) {
+                timeText.append('0');
+            }
+            timeText.append(millis);
+            timeLayout.setText(font, timeText);
+        }
+        if (level != shownLevel) {
+            shownLevel = level;
+            levelText.setLength(0);
+            levelText.append("current level: ").append(level);
+            levelLayout.setText(font, levelText);
+        }
+        font.draw(batch, timeLayout, width * 0.015f, height * 0.888f);
+        font.draw(batch, levelLayout, width * 0.015f, height * 0.83f);
+    }
+
+    /**
+     * Keys are drawn in the top right corner of the screen.
+     */
+    private void drawKeys(SpriteBatch batch, int keysCollected) {
+        if (keysCollected != shownKeys) {
+            shownKeys = keysCollected;
+            keysText.setLength(0);
+            keysText.append("Keys: ").append(keysCollected);
+            keysLayout.setText(font, keysText);
+        }
+        batch.draw(keysTexture, width - 224, height - 62, 64, 64);
+        font.draw(batch, keysLayout, width - 148, height - 20);
+    }
+}
@@ -3,9 +3,10 @@ package de.tum.cit.ase.maze;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.files.FileHandle;
-import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.audio.Music;
@@ -14,33 +15,44 @@ import com.badlogic.gdx.utils.Array;
 import de.tum.cit.ase.maze.Objects.Enemy;
 import de.tum.cit.ase.maze.Objects.Key;
 import de.tum.cit.ase.maze.Objects.Trap;
+import de.tum.cit.ase.maze.simulation.BinaryLevel;
+import de.tum.cit.ase.maze.simulation.ChunkedTileStore;
+import de.tum.cit.ase.maze.simulation.EntityList;
+import de.tum.cit.ase.maze.simulation.ParallelMapParser;
+import de.tum.cit.ase.maze.simulation.TileListener;
+import de.tum.cit.ase.maze.simulation.TileMap;
 
-import java.awt.*;
-import java.io.FileReader;
-import java.util.Properties;
-
-import static com.badlogic.gdx.math.MathUtils.random;
+import java.nio.ByteBuffer;
 
 /**
  * The MapClass class is responsible for loading and drawing the map and the textures inside of it.
+ * The tiles and the rules that only depend on them live in a TileMap, this class adds textures and sounds.
  */
-public class MapClass {
+public class MapClass implements TileListener {
     private MazeRunnerGame game;
-    public static final int FLOOR = -1;
-    public static final int WALL = 0;
-    public static final int ENTRY = 1;
-    public static final int EXIT = 2;
-    public static final int TRAP = 3;
-    public static final int ENEMY = 4;
-    public static final int KEY = 5;
-    public static final int HEART = 6;
-    public static final int LEMON = 7;
+    public static final int FLOOR = TileMap.FLOOR;
+    public static final int WALL = TileMap.WALL;
+    public static final int ENTRY = TileMap.ENTRY;
+    public static final int EXIT = TileMap.EXIT;
+    public static final int TRAP = TileMap.TRAP;
+    public static final int ENEMY = TileMap.ENEMY;
+    public static final int KEY = TileMap.KEY;
+    public static final int HEART = TileMap.HEART;
+    public static final int LEMON = TileMap.LEMON;
+
+    // extra tiles drawn around the visible area, so sprites overlapping a tile border don't pop in
+    public static final int CULL_MARGIN = 1;
+    // paged maps load the tiles around the view in the background, more of them in the direction the view moves
+    private static final int PREFETCH_MARGIN = 16;
+    private static final int PREFETCH_AHEAD = 64;
 
 
     private TextureRegion wallTexture;
     private TextureRegion wallTextureAbove;
     private TextureRegion wallTextureBelow;
     private TextureRegion wallTextureBoth;
+    // indexed by wall variant: bit 0 = wall above, bit 1 = wall below
+    private TextureRegion[] wallVariantTextures;
 
 
     private TextureRegion entryTexture;
@@ -53,31 +65,33 @@ public class MapClass {
 
     private TextureRegion heartTexture;
     private TextureRegion lemonTexture;
-    private Texture tiles;
-    private Texture key;
-    private Texture mobs;
-    private Texture floor;
-    private Texture heart;
-    private Texture lemon;
-
-    private boolean heartPlaced = false;
-    private boolean lemonPlaced = false;
+    private TextureRegion tiles;
+    private TextureRegion key;
+    private TextureRegion floor;
+    private TextureRegion heart;
+    private TextureRegion lemon;
 
-    private int[][] map;
+    private final TileMap tileMap = new TileMap();
     private Character character;
     float sinusInput;
-    private Texture trapSheet2 = null;
-    private Texture walls = null;
+    private TextureRegion trapSheet2 = null;
+    private TextureRegion walls = null;
 
-    private Texture trapSheet = null;
-    private Texture enemySheet = null;
+    private TextureRegion trapSheet = null;
+    private TextureRegion enemySheet = null;
     private Animation<TextureRegion> enemyAnimationUp;
     private Animation<TextureRegion> enemyAnimationDown;
     private Animation<TextureRegion> enemyAnimationLeft;
     private Animation<TextureRegion> enemyAnimationRight;
     private Animation<TextureRegion> currentEnemyAnimation;
-    private long lastMoveTime = 0;
-    private long moveInterval = 250;
+    private int tilesSkipped = 0;
+    private int visibleMinX;
+    private int visibleMinY;
+    private int visibleMaxX;
+    private int visibleMaxY;
+    private int previousVisibleMinX;
+    private int previousVisibleMinY;
+    private StaticTileLayer staticLayer;
     private Sound heartPickup;
     private Sound keySound;
     private Sound explosion;
@@ -89,19 +103,20 @@ public class MapClass {
 
 
     public MapClass() {
-
+        tileMap.addListener(this);
     }
 
     /**
-     * Initializes and loads textures
+     * Initializes textures from the sheets packed into the game atlas and loads sounds
+     *
+     * @param atlas
      */
 
-    public void loadTextures() {
-        tiles = new Texture(Gdx.files.internal("basictiles.png"));
-        key = new Texture(Gdx.files.internal("key-white.png"));
-        mobs = new Texture(Gdx.files.internal("mobs.png"));
-        floor = new Texture(Gdx.files.internal("floor.png"));
-        walls = new Texture(Gdx.files.internal("basictiles2.png"));
+    public void loadTextures(GameAtlas atlas) {
+        tiles = atlas.getSheet("basictiles");
+        key = atlas.getSheet("key-white");
+        floor = atlas.getSheet("floor");
+        walls = atlas.getSheet("basictiles2");
 
         this.keys = new Key(key, this);
 
@@ -110,31 +125,36 @@ public class MapClass {
         explosion = Gdx.audio.newSound(Gdx.files.internal("sounds/Explosion11.mp3"));
         lemonSound = Gdx.audio.newSound(Gdx.files.internal("sounds/pick.mp3"));
 
-        trapSheet2 = new Texture(Gdx.files.internal("slime-Sheet.png"));
-        trapSheet = new Texture(Gdx.files.internal("things.png"));
-        enemySheet = new Texture(Gdx.files.internal("mobs.png"));
-        lemon = new Texture(Gdx.files.internal("lem.png"));
-        enemySheet = new Texture(Gdx.files.internal("mobs.png"));
-        heart = new Texture(Gdx.files.internal("heart1.png"));
+        trapSheet2 = atlas.getSheet("slime-Sheet");
+        trapSheet = atlas.getSheet("things");
+        enemySheet = atlas.getSheet("mobs");
+        lemon = atlas.getSheet("lem");
+        heart = atlas.getSheet("heart1");
 
         trap = new Trap(trapSheet);
         trap2 = new Trap(trapSheet2);
         enemy = new Enemy(enemySheet);
 
-        TextureRegion[][] splitTiles = TextureRegion.split(tiles, 16, 16);
-        TextureRegion[][] splitTiles2 = TextureRegion.split(walls, 16, 16);
+        TextureRegion[][] splitTiles = tiles.split(16, 16);
+        TextureRegion[][] splitTiles2 = walls.split(16, 16);
         wallTexture = splitTiles2[0][2];
         wallTextureAbove = splitTiles2[0][3];
         wallTextureBelow = splitTiles2[0][1];
         wallTextureBoth = splitTiles2[0][0];
+        wallVariantTextures = new TextureRegion[]{wallTextureBoth, wallTextureAbove, wallTexture, wallTextureBelow};
         exitTexture = splitTiles[6][1];
         entryTexture = splitTiles[7][1];
-        floorTexture = new TextureRegion(floor, 16, 16);
+        floorTexture = new TextureRegion(floor, 0, 0, 16, 16);
         trapTexture = splitTiles[7][4];
 //        enemyTexture = new TextureRegion(mobs, 0, 0, 16, 16); // not animated enemy
-        keyTexture = new TextureRegion(key, 16, 16);
-        heartTexture = new TextureRegion(heart, 18, 18);
-        lemonTexture = new TextureRegion(lemon, 32, 32);
+        keyTexture = new TextureRegion(key, 0, 0, 16, 16);
+        heartTexture = new TextureRegion(heart, 0, 0, 18, 16); // 18x18 would reach into the next sheet
+        lemonTexture = new TextureRegion(lemon, 0, 0, 32, 32);
+
+        staticLayer = new StaticTileLayer(this);
+        if (tileMap.isLoaded()) {
+            staticLayer.resize(tileMap.getWidth(), tileMap.getHeight());
+        }
 //        loadEnemyAnimation();
 //        loadSecondTrapAnimation();
 //        loadTrapAnimation();
@@ -148,72 +168,154 @@ public class MapClass {
     public void render(SpriteBatch batch) {
         updateSinusInput(Gdx.graphics.getDeltaTime());
 
-        moveEnemies();
 //        placeLemonRandomly();
 //        placeHeartRandomly();
         currentEnemyAnimation = enemyAnimationDown;
 
-        for (int x = 0; x < map.length; x++) {
-            for (int y = 0; y < map[x].length; y++) {
-                TextureRegion textureRegion = getTextureRegionForTile(map[x][y]);
+        tilesSkipped = 0;
+        drawTiles(batch, 0, 0, tileMap.getWidth() - 1, tileMap.getHeight() - 1, true);
+    }
 
-                if (map[x][y] != KEY && map[x][y] != TRAP && map[x][y] != ENEMY
-                        && map[x][y] != HEART && map[x][y] != LEMON) {
-                    textureRegion = getTextureRegionForTile(map[x][y]);
-                } else {
-                    textureRegion = floorTexture;
-                }
-                batch.draw(textureRegion, x * 64, y * 64, 64, 64);
+    /**
+     * Draws the dynamic objects (keys, traps, enemies, hearts and lemons) inside the camera view
+     * (plus CULL_MARGIN tiles on every side). Floor, walls, entry and exit are drawn by
+     * renderStaticLayer, which has to be called before the batch is started.
+     * The number of tiles left out is available through getTilesSkipped().
+     *
+     * @param batch
+     * @param camera camera the map is seen through
+     */
+    public void render(SpriteBatch batch, OrthographicCamera camera) {
+        updateSinusInput(Gdx.graphics.getDeltaTime());
 
-                if (map[x][y] == WALL) {
-                    if (isWallAbove(x, y) && isWallBelow(x, y)) {
-                        textureRegion = wallTextureBelow;
-                    }
-                    if ((!isWallAbove(x, y) && isWallBelow(x, y))) {
-                        textureRegion = wallTexture;
-                    }
-                    if ((!isWallAbove(x, y) && !isWallBelow(x, y))){
-                        textureRegion = wallTextureBoth;
-                    }
-                    if ((isWallAbove(x, y) && !isWallBelow(x, y))) {
-                        textureRegion = wallTextureAbove;
-                    }
-                    batch.draw(textureRegion, x * 64, y * 64, 64, 64);
-                }
+        currentEnemyAnimation = enemyAnimationDown;
 
-                if (map[x][y] == KEY) {
-                    TextureRegion frame = keys.loadAnimation().getKeyFrame(sinusInput, true);
-                    batch.draw(frame, x * 64 + 12, y * 64 + 15, 40, 40);
-                }
+        updateVisibleRange(camera);
+        drawTiles(batch, visibleMinX, visibleMinY, visibleMaxX, visibleMaxY, false);
+    }
 
-                if (map[x][y] == TRAP) {
-                    TextureRegion currentFrame = trap.loadAnimation().getKeyFrame(sinusInput, true);
-                    if (useSecondTrapTexture(x, y)) {
-                        currentFrame = trap2.loadSecondTrapAnimation().getKeyFrame(sinusInput, true);
-                    } else {
-                        currentFrame = trap.loadAnimation().getKeyFrame(sinusInput, true);
-                    }
-                    batch.draw(currentFrame, x * 64, y * 64, 64, 64);
-                }
+    /**
+     * Draws the cached floor, walls, entry and exit inside the camera view.
+     * Chunks touched by setTile since the last frame are rebuilt first.
+     *
+     * @param camera camera the map is seen through
+     */
+    public void renderStaticLayer(OrthographicCamera camera) {
+        updateVisibleRange(camera);
+        prefetchAroundView();
+        staticLayer.render(camera.combined, visibleMinX, visibleMinY, visibleMaxX, visibleMaxY);
+    }
 
-                if (map[x][y] == ENEMY) {
-                    TextureRegion enemyFrame = enemy.loadAnimation().getKeyFrame(sinusInput, true);
-                    batch.draw(enemyFrame, x * 64, y * 64 + 10, 64, 64);
-                }
+    /**
+     * Asks the tile store to load the tiles around the visible range, see TileStore.prefetch
+     */
+    private void prefetchAroundView() {
+        int directionX = Integer.signum(visibleMinX - previousVisibleMinX);
+        int directionY = Integer.signum(visibleMinY - previousVisibleMinY);
+        previousVisibleMinX = visibleMinX;
+        previousVisibleMinY = visibleMinY;
+        tileMap.prefetch(visibleMinX - PREFETCH_MARGIN + Math.min(directionX, 0) * PREFETCH_AHEAD,
+                visibleMinY - PREFETCH_MARGIN + Math.min(directionY, 0) * PREFETCH_AHEAD,
+                visibleMaxX + PREFETCH_MARGIN + Math.max(directionX, 0) * PREFETCH_AHEAD,
+                visibleMaxY + PREFETCH_MARGIN + Math.max(directionY, 0) * PREFETCH_AHEAD);
+    }
 
-                if (map[x][y] == HEART) {
-                    batch.draw(heartTexture, x * 64 + 10, y * 64 + 10, 45, 45);
-                }
+    /**
+     * Calculates the range of tiles seen through the camera and how many tiles are left out
+     *
+     * @param camera
+     */
+    private void updateVisibleRange(OrthographicCamera camera) {
+        float halfWidth = camera.viewportWidth * camera.zoom / 2;
+        float halfHeight = camera.viewportHeight * camera.zoom / 2;
+
+        visibleMinX = Math.max(0, (int) Math.floor((camera.position.x - halfWidth) / 64) - CULL_MARGIN);
+        visibleMinY = Math.max(0, (int) Math.floor((camera.position.y - halfHeight) / 64) - CULL_MARGIN);
+        visibleMaxX = Math.min(tileMap.getWidth() - 1, (int) Math.floor((camera.position.x + halfWidth) / 64) + CULL_MARGIN);
+        visibleMaxY = Math.min(tileMap.getHeight() - 1, (int) Math.floor((camera.position.y + halfHeight) / 64) + CULL_MARGIN);
+
+        int visible = Math.max(0, visibleMaxX - visibleMinX + 1) * Math.max(0, visibleMaxY - visibleMinY + 1);
+        tilesSkipped = tileMap.getWidth() * tileMap.getHeight() - visible;
+    }
 
-                if (map[x][y] == LEMON) {
-                    batch.draw(lemonTexture, x * 64 + 10, y * 64 + 10, 45, 45);
+    /**
+     * Draws every tile in the given (inclusive) tile range
+     *
+     * @param drawStatic whether floor, walls, entry and exit are drawn as well
+     */
+    private void drawTiles(SpriteBatch batch, int minX, int minY, int maxX, int maxY, boolean drawStatic) {
+        if (drawStatic) {
+            for (int y = minY; y <= maxY; y++) {
+                for (int x = minX; x <= maxX; x++) {
+                    int tile = tileMap.getTile(x, y);
+                    batch.draw(getStaticTextureRegion(tile), x * 64, y * 64, 64, 64);
+                    if (tile == WALL) {
+                        batch.draw(getWallTexture(x, y), x * 64, y * 64, 64, 64);
+                    }
                 }
             }
+        }
 
+        // all objects of a type show the same frame, so it is looked up once per frame
+        TextureRegion keyFrame = keys.loadAnimation().getKeyFrame(sinusInput, true);
+        TextureRegion trapFrame = trap.loadAnimation().getKeyFrame(sinusInput, true);
+        TextureRegion secondTrapFrame = trap2.loadSecondTrapAnimation().getKeyFrame(sinusInput, true);
+        TextureRegion enemyFrame = enemy.loadAnimation().getKeyFrame(sinusInput, true);
+
+        // the visible tiles are read instead of the entity lists, so the cost doesn't grow with the map;
+        // rows are drawn from the top, so an enemy reaching into the tile above is drawn over it
+        for (int y = maxY; y >= minY; y--) {
+            for (int x = minX; x <= maxX; x++) {
+                switch (tileMap.getTile(x, y)) {
+                    case TRAP -> batch.draw(useSecondTrapTexture(x, y) ? secondTrapFrame : trapFrame, x * 64, y * 64, 64, 64);
+                    case KEY -> batch.draw(keyFrame, x * 64 + 12, y * 64 + 15, 40, 40);
+                    case HEART -> batch.draw(heartTexture, x * 64 + 10, y * 64 + 10, 45, 45);
+                    case LEMON -> batch.draw(lemonTexture, x * 64 + 10, y * 64 + 10, 45, 45);
+                    case ENEMY -> batch.draw(enemyFrame, x * 64, y * 64 + 10, 64, 64);
+                    default -> {
+                    }
+                }
+            }
+        }
+    }
 
+    /**
+     * Adds the static part of a tile (floor, wall, entry or exit) to a cache that is being built
+     *
+     * @param cache
+     * @param x
+     * @param y
+     */
+    void cacheStaticTile(SpriteCache cache, int x, int y) {
+        int tile = tileMap.getTile(x, y);
+        cache.add(getStaticTextureRegion(tile), x * 64, y * 64, 64, 64);
+        if (tile == WALL) {
+            cache.add(getWallTexture(x, y), x * 64, y * 64, 64, 64);
         }
     }
 
+    /**
+     * Dynamic objects are drawn on top of the floor, so only walls, entry and exit
+     * have a texture of their own in the static layer
+     *
+     * @param tileType
+     * @return
+     */
+    private TextureRegion getStaticTextureRegion(int tileType) {
+        return TileMap.isStaticTile(tileType) ? getTextureRegionForTile(tileType) : floorTexture;
+    }
+
+    /**
+     * Returns the wall texture chosen for the tile when the map was loaded
+     *
+     * @param x
+     * @param y
+     * @return
+     */
+    private TextureRegion getWallTexture(int x, int y) {
+        return wallVariantTextures[tileMap.getWallVariant(x, y)];
+    }
+
     /**
      * Depending on the type of coordinate it returns the specific texture needed
      *
@@ -242,7 +344,7 @@ public class MapClass {
      * @return
      */
     public boolean isWallAbove(int x, int y) {
-        return y > 0 && map[x][y - 1] == WALL; // y > 0 no exception
+        return tileMap.isWallAbove(x, y);
     }
 
     /**
@@ -253,78 +355,92 @@ public class MapClass {
      * @return
      */
     public boolean isWallBelow(int x, int y) {
-        return y < map[x].length - 1 && map[x][y + 1] == WALL; // y < map[x].length - 1 no exception
+        return tileMap.isWallBelow(x, y);
     }
 
     /**
-     * Reads and splits the coordinates in the .properties file
+     * Reads and splits the coordinates in the .properties file, or loads a binary or chunked level
      *
-     * @param file (.properties file loaded)
+     * @param file (.properties, .level or .chunks file)
      */
 
     public void loadMap(FileHandle file) {
-        Properties properties = new Properties();
+        if (file.name().endsWith(ChunkedTileStore.EXTENSION)) {
+            loadChunkedMap(file);
+            return;
+        }
+        if (file.name().endsWith(BinaryLevel.EXTENSION)) {
+            // there is no .properties file to fall back to
+            loadBinaryMap(file);
+            return;
+        }
+        // the binary level with the same name (see LevelConverter), unless the .properties file was edited since
+        FileHandle binary = file.sibling(file.nameWithoutExtension() + BinaryLevel.EXTENSION);
+        if (binary.exists() && binary.lastModified() >= file.lastModified() && loadBinaryMap(binary)) {
+            return;
+        }
         try {
-            properties.load(new FileReader(file.file()));
-
-            // searches for highest number in file, so that it can set correct boundaries
-            int maxx = 0;
-            int Maxy = 0;
-            for (String key : properties.stringPropertyNames()) {
-                String[] parts = key.split(",");
-
-                int x = Integer.parseInt(parts[0]); // x coordinate
-                int y = Integer.parseInt(parts[1]); // y coordinate
-
-                if (x > maxx) {
-                    maxx = x;
-                }
-                if (y > Maxy) {
-                    Maxy = y;
-                }
-            }
-
-            map = new int[maxx + 1][Maxy + 1]; // +1 because arrays are zero
-
-            // initialize map with default floor texture
-            for (int i = 0; i < map.length; i++) {
-                for (int j = 0; j < map[i].length; j++) {
-                    map[i][j] = FLOOR;
-                }
+            if (file.length() >= ParallelMapParser.MIN_PARALLEL_SIZE && file.file().exists()) {
+                tileMap.loadParallel(file.file().toPath());
+            } else {
+                tileMap.load(file.reader());
             }
+        } catch (Exception e) {
+            System.out.println(file.name() + ": " + e.getMessage());
+        }
+    }
 
-            // coordinates equal to object
-            for (String key : properties.stringPropertyNames()) {
-                String[] parts = key.split(",");
-
-                int x = Integer.parseInt(parts[0]);
-                int y = Integer.parseInt(parts[1]);
-                int value = Integer.parseInt(properties.getProperty(key));
+    /**
+     * Opens a very large map that is paged from its file instead of being loaded completely
+     *
+     * @param file (.chunks file, see ChunkedTileStore)
+     */
+    private void loadChunkedMap(FileHandle file) {
+        try {
+            tileMap.setStore(ChunkedTileStore.open(file.file().toPath(), ChunkedTileStore.DEFAULT_MEMORY_BUDGET));
+        } catch (Exception e) {
+            System.out.println(file.name() + ": " + e.getMessage());
+        }
+    }
 
-                map[x][y] = value;
+    /**
+     * Loads a binary level, see LevelConverter
+     *
+     * @param file (.level file)
+     * @return whether it was loaded, otherwise the error was printed
+     */
+    private boolean loadBinaryMap(FileHandle file) {
+        try {
+            if (file.file().exists()) {
+                tileMap.loadBinary(file.file().toPath());
+            } else {
+                // inside a jar the level can't be mapped
+                tileMap.setStore(BinaryLevel.read(ByteBuffer.wrap(file.readBytes())));
             }
-
+            return true;
         } catch (Exception e) {
-            System.out.println(e.getMessage());
+            System.out.println(file.name() + ": " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Searches for and returns the coordinates of the entry
+     * Returns the list holding the cells of all objects of a tile type
      *
-     * @return
+     * @param tileType
+     * @return the list, or null for floor, walls, entry and exit
      */
+    public EntityList getEntities(int tileType) {
+        return tileMap.getEntities(tileType);
+    }
 
-    public Point findEntryPoint() {
-        for (int x = 0; x < map.length; x++) {
-            for (int y = 0; y < map[x].length; y++) {
-                if (map[x][y] == ENTRY) {
-                    return new Point(x, y);
-
-                }
-            }
-        }
-        return null;
+    /**
+     * Looks up the entry in the index of special tiles, see TileMap.getEntities
+     *
+     * @return cell index of the entry or -1 if the map has none, see getTileMap().cellX and cellY
+     */
+    public int findEntryCell() {
+        return tileMap.findEntryCell();
     }
 
     /**
@@ -332,36 +448,15 @@ public class MapClass {
      * on the map and places it there
      */
     public void placeHeartRandomly() {
-        if (!heartPlaced && MathUtils.randomBoolean(0.5f)) { // 50% probability
-            int x, y;
-            do {
-                x = random(map.length - 1);
-                y = random(map[0].length - 1);
-
-            } while (map[x][y] != FLOOR); // Ensure it's placed on a floor tile
-
-            map[x][y] = HEART;
-            heartPlaced = true;
-        }
+        tileMap.placeHeartRandomly(MathUtils.random);
     }
 
     /**
-     * Sets a 15% probability to add a new lemon coordinate
+     * Sets a 10% probability to add a new lemon coordinate
      * on the map and places it there
      */
     public void placeLemonRandomly() {
-        if (!lemonPlaced && MathUtils.randomBoolean(0.10f)) { // 15% probability
-            int x, y;
-            do {
-                x = random(map.length - 1);
-                y = random(map[0].length - 1);
-
-            } while (map[x][y] != FLOOR); // Ensure it's placed on a floor tile
-
-            map[x][y] = LEMON;
-            lemonPlaced = true;
-//            System.out.println("lemon placed");
-        }
+        tileMap.placeLemonRandomly(MathUtils.random);
     }
 
 
@@ -374,19 +469,15 @@ public class MapClass {
      */
 
     public int getTile(int x, int y) {
-        if (x >= 0 && x < map.length && y >= 0 && y < map[x].length) {
-            return map[x][y];
-        }
-        return -1;
+        return tileMap.getTile(x, y);
     }
 
     /**
      * Removes the key texture from the map and replaces it with floor texture
      */
     public void removeKey(int x, int y) {
-        if (map[x][y] == KEY) {
+        if (tileMap.remove(x, y, KEY)) {
             keySound.play();
-            map[x][y] = FLOOR;
         }
     }
 
@@ -394,26 +485,31 @@ public class MapClass {
      * Removes the heart texture from the map and replaces it with floor texture
      */
     public void removeHeart(int x, int y) {
-        if (map[x][y] == HEART) {
+        if (tileMap.remove(x, y, HEART)) {
             heartPickup.play();
-            map[x][y] = FLOOR;
         }
     }
     public void removeEnemy(int x, int y){
-        setTile(x, y, MapClass.FLOOR);
+        tileMap.remove(x, y, ENEMY);
     }
 
+    /**
+     * Changes a tile. All changes to the map should go through this method.
+     *
+     * @param x
+     * @param y
+     * @param tileType
+     */
     public void setTile(int x, int y, int tileType) {
-            map[x][y] = tileType;
+        tileMap.setTile(x, y, tileType);
     }
 
     /**
      * Removes the exit texture from the map and replaces it with floor texture
      */
     public void removeExit(int x, int y) {
-        if (map[x][y] == MapClass.EXIT) {
+        if (tileMap.remove(x, y, EXIT)) {
             explosion.play();
-            map[x][y] = MapClass.FLOOR;
         }
     }
 
@@ -421,71 +517,11 @@ public class MapClass {
      * Removes the lemon texture from the map and replaces it with floor texture
      */
     public void removeLemon(int x, int y) {
-        if (map[x][y] == MapClass.LEMON) {
+        if (tileMap.remove(x, y, LEMON)) {
             lemonSound.play();
-            map[x][y] = MapClass.FLOOR;
-        }
-    }
-
-    /**
-     * Moves the enemies in the map based on their current position.
-     */
-    public void moveEnemies() {
-
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastMoveTime < moveInterval) {
-            return; // not enough time has passed since the last move
-        }
-        lastMoveTime = currentTime;
-
-        for (int x = 0; x < map.length; x++) {
-            for (int y = 0; y < map[x].length; y++) {
-                if (map[x][y] == ENEMY) {
-                    // Randomly choose a direction to move: 0-up, 1-down, 2-left, 3-right
-
-                    int direction = random(0, 3);
-
-                    int newX = x;
-                    int newY = y;
-
-                    switch (direction) {
-                        case 0:
-                            newY++;
-                            break; // up
-                        case 1:
-                            newY--;
-                            break; // down
-                        case 2:
-                            newX--;
-                            break; // left
-                        case 3:
-                            newX++;
-                            break; // right
-                    }
-
-                    // Check if the new position is within bounds and not a wall or another enemy
-                    if (isWithinBounds(newX, newY) && map[newX][newY] == FLOOR) {
-                        map[x][y] = FLOOR;
-                        map[newX][newY] = ENEMY;
-                        currentEnemyAnimation = getEnemyAnimationByDirection(direction);
-
-                    }
-                }
-            }
         }
     }
 
-
-    private Animation<TextureRegion> getEnemyAnimationByDirection(int direction) {
-        return switch (direction) {
-            case 0 -> enemyAnimationUp;
-            case 1 -> enemyAnimationDown;
-            case 2 -> enemyAnimationLeft;
-            case 3 -> enemyAnimationRight;
-            default -> enemyAnimationDown;
-        };
-    }
-
     /**
      * Calculates the coordinates based off the position of the character
      *
@@ -495,21 +531,7 @@ public class MapClass {
      */
 
     public boolean isWall(float newX, float newY) {
-
-        int leftX = (int) ((newX + 6) / 64);
-        int rightX = (int) ((newX + 50) / 64);
-        int topY = (int) ((newY + 20) / 64);
-        int bottomY = (int) ((newY + 40) / 64);
-
-        // check all corners of the character for collision
-        return getTile(leftX, topY) == WALL ||
-                getTile(rightX, topY) == WALL ||
-                getTile(leftX, bottomY) == WALL ||
-                getTile(rightX, bottomY) == WALL || getTile(leftX, topY) == EXIT ||
-                getTile(rightX, topY) == EXIT ||
-                getTile(leftX, bottomY) == EXIT ||
-                getTile(rightX, bottomY) == EXIT;
-
+        return tileMap.isWall(newX, newY);
     }
 
     /**
@@ -520,7 +542,7 @@ public class MapClass {
      * @return
      */
     public boolean isWithinBounds(int x, int y) {
-        return x >= 0 && x < map.length && y >= 0 && y < map[x].length;
+        return tileMap.isWithinBounds(x, y);
     }
 
 
@@ -534,9 +556,7 @@ public class MapClass {
      */
 
     public boolean isTrap(float x, float y) {
-        int tileX = (int) (x / 64);
-        int tileY = (int) (y / 64);
-        return getTile(tileX, tileY) == TRAP;
+        return tileMap.isTrap(x, y);
     }
 
     /**
@@ -548,9 +568,30 @@ public class MapClass {
      * @return
      */
     public boolean isEnemy(float x, float y) {
-        int tileX = (int) ((x ) / 64);
-        int tileY = (int) ((y ) / 64);
-        return getTile(tileX, tileY) == ENEMY;
+        return tileMap.isEnemy(x, y);
+    }
+
+    /**
+     * Rebuilds the static layer for the new map
+     */
+    @Override
+    public void mapLoaded(int width, int height) {
+        if (staticLayer != null) {
+            staticLayer.resize(width, height);
+        }
+    }
+
+    /**
+     * Marks the static layer around the tile for rebuilding if its look changed
+     */
+    @Override
+    public void tileChanged(int x, int y, int oldType, int newType) {
+        if (staticLayer != null && (TileMap.isStaticTile(oldType) || TileMap.isStaticTile(newType))) {
+            // walls above and below pick their texture based on this tile
+            staticLayer.markDirty(x, y - 1);
+            staticLayer.markDirty(x, y);
+            staticLayer.markDirty(x, y + 1);
+        }
     }
 
     //    public void loadEnemyAnimation() {
@@ -579,30 +620,29 @@ public class MapClass {
 //    }
 
 
+    /**
+     * Disposes sounds and caches. The textures belong to the game atlas and stay loaded.
+     */
     public void dispose() {
-        if (tiles != null) {
-            tiles.dispose();
-        }
-        if (key != null) {
-            key.dispose();
-        }
-        if (mobs != null) {
-            mobs.dispose();
-        }
-        if (floor != null) {
-            floor.dispose();
-        }
-        if (trapSheet != null) {
-            trapSheet.dispose();
-        }
         if (keySound != null) {
             keySound.dispose();
         }
         if (heartPickup != null) {
             heartPickup.dispose();
         }
-        if (enemySheet != null) {
-            enemySheet.dispose();
+        if (explosion != null) {
+            explosion.dispose();
+        }
+        if (lemonSound != null) {
+            lemonSound.dispose();
+        }
+        if (staticLayer != null) {
+            staticLayer.dispose();
+        }
+        try {
+            tileMap.close(); // paged maps write their changed tiles back
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
         }
     }
 
@@ -632,13 +672,39 @@ public class MapClass {
         return y % 2 == 1;
     }
 
+    /**
+     * @return a copy of the tiles indexed by [x][y]; use getTile to look at single tiles
+     */
     public int[][] getMap() {
-        return map;
+        return tileMap.getMap();
+    }
+
+    public TileMap getTileMap() {
+        return tileMap;
     }
 
     public Sound getKeySound() {
         return keySound;
     }
+
+    public Sound getHeartSound() {
+        return heartPickup;
+    }
+
+    public Sound getExplosionSound() {
+        return explosion;
+    }
+
+    public Sound getLemonSound() {
+        return lemonSound;
+    }
+
+    /**
+     * @return number of tiles left out by the last culled render call
+     */
+    public int getTilesSkipped() {
+        return tilesSkipped;
+    }
 }
 
 
@@ -6,7 +6,6 @@ import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
@@ -41,9 +40,9 @@ public class MazeRunnerGame extends Game {
 
     // UI Skin
     private Skin skin;
-    private Texture walkSheet;
-    private Texture heartSheet;
-    private Texture enemySheet;
+    private GameAtlas atlas;
+    private TextureRegion walkSheet;
+    private TextureRegion heartSheet;
 
     // Character animation downwards
     private Animation<TextureRegion> characterDownAnimation;
@@ -65,7 +64,7 @@ public class MazeRunnerGame extends Game {
     private Sound wsound;
     private int currentLevel = 1;
     private Sound levelUp;
-    private Texture attackSheet;
+    private TextureRegion attackSheet;
 
 
     /**
@@ -87,16 +86,16 @@ public class MazeRunnerGame extends Game {
     public void create() {
         spriteBatch = new SpriteBatch(); // Create SpriteBatch
         skin = new Skin(Gdx.files.internal("craft/craftacular-ui.json")); // Load UI skin
-        walkSheet = new Texture(Gdx.files.internal("character.png"));
-        attackSheet = new Texture(Gdx.files.internal("characteratt.png"));
+        atlas = new GameAtlas(); // Pack the gameplay sprite sheets into one texture
+        walkSheet = atlas.getSheet("character");
+        attackSheet = atlas.getSheet("characteratt");
         //   walkSheet = new Texture(Gdx.files.internal("cat1.png"));
-        heartSheet = new Texture(Gdx.files.internal("objects.png"));
-        enemySheet = new Texture(Gdx.files.internal("mobs.png"));
+        heartSheet = atlas.getSheet("objects");
 
 
         this.loadCharacterAnimation(); // Load character animation
         this.loadAttackAnimations();
-        this.loadHeartAnimation();
+        heartAnimation = this.loadHeartAnimation();
 //        map.loadTrapAnimation();
 
 
@@ -223,7 +222,7 @@ public class MazeRunnerGame extends Game {
     }
 
 
-    public Animation<TextureRegion> createAnimation(Texture sheet, int row, int frameWidth, int frameHeight, int frames) {
+    public Animation<TextureRegion> createAnimation(TextureRegion sheet, int row, int frameWidth, int frameHeight, int frames) {
         Array<TextureRegion> walkFrames = new Array<>(TextureRegion.class);
         for (int col = 0; col < frames; col++) {
             walkFrames.add(new TextureRegion(sheet, col * frameWidth, row * frameHeight, frameWidth, frameHeight));
@@ -254,9 +253,7 @@ public class MazeRunnerGame extends Game {
         gameScreen.dispose();
         spriteBatch.dispose(); // Dispose the spriteBatch
         skin.dispose(); // Dispose the skin
-        heartSheet.dispose();
-        walkSheet.dispose();
-        enemySheet.dispose();
+        atlas.dispose(); // Dispose the packed sprite sheets
         wsound.dispose();
         backgroundMusic.dispose();
         menuMusic.dispose();
@@ -273,6 +270,14 @@ public class MazeRunnerGame extends Game {
     public SpriteBatch getSpriteBatch() {
         return spriteBatch;
     }
+
+    public GameAtlas getAtlas() {
+        return atlas;
+    }
+    public Animation<TextureRegion> getHeartAnimation() {
+        return heartAnimation;
+    }
+
     public Animation<TextureRegion> getCharacterDownAnimation() {
         return characterDownAnimation;
     }
@@ -94,7 +94,7 @@ public class MenuScreen implements Screen {
                     public void onFileChosen(FileHandle file) {
                         MapClass newMap = new MapClass();
                         Character character1 = new Character(64,128, newMap);
-                        newMap.loadTextures();
+                        newMap.loadTextures(game.getAtlas());
                         newMap.loadMap(file);
                         String filename = file.toString();
                         String levelNumberStr = filename.replaceAll("[^0-9]", ""); // only digits remain
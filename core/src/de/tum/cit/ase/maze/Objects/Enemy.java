@@ -1,6 +1,5 @@
 package de.tum.cit.ase.maze.Objects;
 
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
@@ -9,14 +8,26 @@ import com.badlogic.gdx.utils.Array;
  * The Enemy class is responsible for drawing its animation.
  */
 public class Enemy extends GameObject {
-    private Texture enemySheet;
+    private TextureRegion enemySheet;
 
-    public Enemy(Texture enemySheet) {
+    public Enemy(TextureRegion enemySheet) {
         this.enemySheet = enemySheet;
     }
 
+    /**
+     * Returns the enemy animation, which is only built the first time
+     * @return
+     */
     @Override
     public Animation<TextureRegion> loadAnimation() {
+        Animation<TextureRegion> animation = findAnimation(enemySheet, "enemy");
+        if (animation == null) {
+            animation = registerAnimation(enemySheet, "enemy", buildAnimation());
+        }
+        return animation;
+    }
+
+    private Animation<TextureRegion> buildAnimation() {
         Array<TextureRegion> frames = new Array<>(TextureRegion.class);
         for (int col = 0; col < 3; col++) {
             frames.add(new TextureRegion(enemySheet, col * 16, 64, 16, 16));
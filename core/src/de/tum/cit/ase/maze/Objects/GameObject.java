@@ -3,11 +3,15 @@ package de.tum.cit.ase.maze.Objects;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.ObjectMap;
 
 /**
  * The GameObject class creates some methods that are common among its inheritors.
+ * Animations are kept in a registry shared by all objects, so every animation
+ * is only built once per texture sheet.
  */
 public abstract class GameObject {
+    private static final ObjectMap<TextureRegion, ObjectMap<String, Animation<TextureRegion>>> animations = new ObjectMap<>();
     private Texture texture;
 
     public GameObject() {
@@ -18,4 +22,38 @@ public abstract class GameObject {
 
     public abstract void remove(int x, int y);
 
+    /**
+     * Looks up an animation that was already built from the sheet
+     *
+     * @param sheet region the animation frames are cut from
+     * @param name  name of the animation within the sheet
+     * @return the animation or null if it was not registered yet
+     */
+    protected static Animation<TextureRegion> findAnimation(TextureRegion sheet, String name) {
+        ObjectMap<String, Animation<TextureRegion>> sheetAnimations = animations.get(sheet);
+        return sheetAnimations == null ? null : sheetAnimations.get(name);
+    }
+
+    /**
+     * Stores an animation, so later calls of findAnimation return it
+     *
+     * @return the registered animation
+     */
+    protected static Animation<TextureRegion> registerAnimation(TextureRegion sheet, String name, Animation<TextureRegion> animation) {
+        ObjectMap<String, Animation<TextureRegion>> sheetAnimations = animations.get(sheet);
+        if (sheetAnimations == null) {
+            sheetAnimations = new ObjectMap<>();
+            animations.put(sheet, sheetAnimations);
+        }
+        sheetAnimations.put(name, animation);
+        return animation;
+    }
+
+    /**
+     * Forgets all registered animations. Has to be called before the sheets are disposed.
+     */
+    public static void releaseAllAnimations() {
+        animations.clear();
+    }
+
 }
@@ -1,6 +1,5 @@
 package de.tum.cit.ase.maze.Objects;
 
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
@@ -13,11 +12,11 @@ import static de.tum.cit.ase.maze.MapClass.KEY;
  * The Key class is responsible for drawing its animation.
  */
 public class Key extends GameObject {
-    private Texture texture;
+    private TextureRegion texture;
     private Character character;
     private MapClass map;
 
-    public Key(Texture texture, MapClass map) {
+    public Key(TextureRegion texture, MapClass map) {
         this.texture = texture;
         this.map = map;
         this.character = new Character(64, 128, map);
@@ -27,8 +26,20 @@ public class Key extends GameObject {
         this.map = map;
     }
 
+    /**
+     * Returns the key animation, which is only built the first time
+     * @return
+     */
     @Override
     public Animation<TextureRegion> loadAnimation() {
+        Animation<TextureRegion> animation = findAnimation(texture, "key");
+        if (animation == null) {
+            animation = registerAnimation(texture, "key", buildAnimation());
+        }
+        return animation;
+    }
+
+    private Animation<TextureRegion> buildAnimation() {
         Array<TextureRegion> frames = new Array<>(TextureRegion.class);
 
         for (int col = 0; col < 11; col++) {
@@ -42,9 +53,9 @@ public class Key extends GameObject {
      */
     @Override
     public void remove(int x, int y) {
-        if (map.getMap()[x][y] == KEY) {
+        if (map.getTile(x, y) == KEY) {
             map.getKeySound().play();
-            map.getMap()[x][y] = FLOOR;
+            map.setTile(x, y, FLOOR);
         }
     }
 
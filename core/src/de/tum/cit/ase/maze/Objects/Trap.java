@@ -1,6 +1,5 @@
 package de.tum.cit.ase.maze.Objects;
 
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
@@ -9,19 +8,27 @@ import com.badlogic.gdx.utils.Array;
  */
 public class Trap extends GameObject{
 
-    private Texture trapSheet;
+    private TextureRegion trapSheet;
 
-    public Trap(Texture trapSheet) {
+    public Trap(TextureRegion trapSheet) {
         this.trapSheet = trapSheet;
     }
 
     /**
-     * Loads the sheet and turns it into a trap animation
+     * Loads the sheet and turns it into a trap animation, which is only built the first time
      * @return
      */
 
     @Override
     public Animation<TextureRegion> loadAnimation() {
+        Animation<TextureRegion> animation = findAnimation(trapSheet, "trap");
+        if (animation == null) {
+            animation = registerAnimation(trapSheet, "trap", buildAnimation());
+        }
+        return animation;
+    }
+
+    private Animation<TextureRegion> buildAnimation() {
         Array<TextureRegion> frames = new Array<>(TextureRegion.class);
 
         for (int col = 0; col < 3; col++) {
@@ -36,10 +43,18 @@ public class Trap extends GameObject{
 
 
     /**
-     * Loads the sheet and turns it into a trap animation
+     * Loads the sheet and turns it into the second trap animation, which is only built the first time
      * @return
      */
     public Animation<TextureRegion> loadSecondTrapAnimation() {
+        Animation<TextureRegion> animation = findAnimation(trapSheet, "secondTrap");
+        if (animation == null) {
+            animation = registerAnimation(trapSheet, "secondTrap", buildSecondTrapAnimation());
+        }
+        return animation;
+    }
+
+    private Animation<TextureRegion> buildSecondTrapAnimation() {
         Array<TextureRegion> frames = new Array<>(TextureRegion.class);
 
         for (int row = 0; row < 7; row++) {
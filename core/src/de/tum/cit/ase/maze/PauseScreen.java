@@ -101,7 +101,7 @@ public class PauseScreen implements Screen {
                     public void onFileChosen(FileHandle file) {
                         MapClass newMap = new MapClass();
                         Character character = new Character(64, 128, newMap);
-                        newMap.loadTextures();
+                        newMap.loadTextures(game.getAtlas());
                         newMap.loadMap(file);
                         String filename = file.toString();
                         String levelNumberStr = filename.replaceAll("[^0-9]", ""); // only digits remain
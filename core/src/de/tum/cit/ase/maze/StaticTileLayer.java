@@ -0,0 +1,128 @@
+package de.tum.cit.ase.maze;
+
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.math.Matrix4;
+
+import java.util.Arrays;
+
+/**
+ * The StaticTileLayer class keeps the floor, walls, entry and exit of the map in SpriteCaches.
+ * The map is split into square chunks, every chunk is built the first time it becomes visible
+ * and is only rebuilt after one of its tiles was changed.
+ */
+public class StaticTileLayer {
+    public static final int CHUNK_SIZE = 16;
+    // a wall tile needs two sprites: the base texture and the variant on top of it
+    private static final int SPRITES_PER_CHUNK = CHUNK_SIZE * CHUNK_SIZE * 2;
+
+    private final MapClass map;
+    private SpriteCache[] caches;
+    private int[] cacheIds;
+    private boolean[] dirty;
+    private int chunksX;
+    private int chunksY;
+    private int width;
+    private int height;
+    private int chunksRebuilt = 0;
+
+    public StaticTileLayer(MapClass map) {
+        this.map = map;
+    }
+
+    /**
+     * Throws away all chunks and prepares the layer for a map of the given size
+     *
+     * @param width  map width in tiles
+     * @param height map height in tiles
+     */
+    public void resize(int width, int height) {
+        dispose();
+        this.width = width;
+        this.height = height;
+        chunksX = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        chunksY = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        caches = new SpriteCache[chunksX * chunksY];
+        cacheIds = new int[chunksX * chunksY];
+        dirty = new boolean[chunksX * chunksY];
+        Arrays.fill(dirty, true);
+    }
+
+    /**
+     * Marks the chunk containing the tile for rebuilding. Tiles outside the map are ignored.
+     *
+     * @param x
+     * @param y
+     */
+    public void markDirty(int x, int y) {
+        if (dirty == null || x < 0 || x >= width || y < 0 || y >= height) {
+            return;
+        }
+        dirty[(x / CHUNK_SIZE) * chunksY + y / CHUNK_SIZE] = true;
+    }
+
+    /**
+     * Draws all chunks overlapping the given (inclusive) tile range
+     *
+     * @param projection projection matrix of the camera
+     */
+    public void render(Matrix4 projection, int minX, int minY, int maxX, int maxY) {
+        chunksRebuilt = 0;
+        if (caches == null || maxX < minX || maxY < minY) {
+            return;
+        }
+        for (int cx = minX / CHUNK_SIZE; cx <= maxX / CHUNK_SIZE; cx++) {
+            for (int cy = minY / CHUNK_SIZE; cy <= maxY / CHUNK_SIZE; cy++) {
+                int index = cx * chunksY + cy;
+                if (dirty[index]) {
+                    rebuild(cx, cy, index);
+                }
+                SpriteCache cache = caches[index];
+                cache.setProjectionMatrix(projection);
+                cache.begin();
+                cache.draw(cacheIds[index]);
+                cache.end();
+            }
+        }
+    }
+
+    private void rebuild(int cx, int cy, int index) {
+        SpriteCache cache = caches[index];
+        if (cache == null) {
+            cache = new SpriteCache(SPRITES_PER_CHUNK, true);
+            caches[index] = cache;
+        } else {
+            cache.clear();
+        }
+
+        cache.beginCache();
+        int maxX = Math.min(width, (cx + 1) * CHUNK_SIZE);
+        int maxY = Math.min(height, (cy + 1) * CHUNK_SIZE);
+        for (int x = cx * CHUNK_SIZE; x < maxX; x++) {
+            for (int y = cy * CHUNK_SIZE; y < maxY; y++) {
+                map.cacheStaticTile(cache, x, y);
+            }
+        }
+        cacheIds[index] = cache.endCache();
+        dirty[index] = false;
+        chunksRebuilt++;
+    }
+
+    /**
+     * @return number of chunks rebuilt during the last render call
+     */
+    public int getChunksRebuilt() {
+        return chunksRebuilt;
+    }
+
+    public void dispose() {
+        if (caches == null) {
+            return;
+        }
+        for (SpriteCache cache : caches) {
+            if (cache != null) {
+                cache.dispose();
+            }
+        }
+        caches = null;
+    }
+}
@@ -0,0 +1,112 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The BinaryLevel class reads and writes levels in a compact binary format:
+ * a 16 byte header (magic, version, width, height) followed by one signed byte per tile,
+ * row by row (index = y * width + x, like DenseTileStore).
+ * Files are read through a memory-mapped channel and the tiles are copied into the store in one go,
+ * so no text has to be parsed.
+ */
+public final class BinaryLevel {
+    public static final String EXTENSION = ".level";
+
+    private static final int MAGIC = 0x4D415A45; // "MAZE"
+    private static final int VERSION = 2; // version 1 stored the tiles column by column
+    private static final int HEADER_SIZE = 16;
+
+    private BinaryLevel() {
+    }
+
+    /**
+     * Reads a binary level by mapping the file into memory
+     *
+     * @param file
+     * @return store holding the tiles
+     * @throws IOException if the file can't be read or is not a valid binary level
+     */
+    public static DenseTileStore read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        }
+    }
+
+    /**
+     * Reads a binary level from a buffer, starting at its current position
+     *
+     * @param buffer
+     * @return store holding the tiles
+     * @throws IOException if the buffer doesn't hold a valid binary level
+     */
+    public static DenseTileStore read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("not a binary level");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported binary level version " + version);
+        }
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        if (width <= 0 || height <= 0 || (long) width * height != buffer.remaining()) {
+            throw new IOException("binary level size " + width + "x" + height
+                    + " doesn't match the " + buffer.remaining() + " bytes of tiles");
+        }
+
+        byte[] tiles = new byte[width * height];
+        buffer.get(tiles);
+        return new DenseTileStore(width, height, tiles);
+    }
+
+    /**
+     * Writes a map as binary level
+     *
+     * @param map  tile types indexed by [x][y], all columns have the same height
+     * @param file
+     * @throws IOException if the file can't be written
+     */
+    public static void write(int[][] map, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = toBuffer(map);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Encodes a map as binary level
+     *
+     * @param map tile types indexed by [x][y], all columns have the same height
+     * @return buffer holding the whole level, ready to be read
+     */
+    public static ByteBuffer toBuffer(int[][] map) {
+        int width = map.length;
+        int height = map[0].length;
+        long size = HEADER_SIZE + (long) width * height;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("map " + width + "x" + height + " is too large for a binary level");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int tile = map[x][y];
+                if (tile < Byte.MIN_VALUE || tile > Byte.MAX_VALUE) {
+                    throw new IllegalArgumentException("tile type " + tile + " at " + x + "," + y + " doesn't fit into a byte");
+                }
+                buffer.put((byte) tile);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,371 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.util.Arrays;
+
+/**
+ * The Bitboard class keeps one bit per tile, for example all tiles of one type.
+ * Every row starts at a new long, so rules that apply to every tile (and, or, shifts to the neighbours)
+ * handle 64 tiles per operation. Bits past the width of a row are always zero.
+ * The operations change the bitboard itself and return it, so they can be chained.
+ */
+public class Bitboard {
+    protected final int width;
+    protected final int height;
+    protected final int wordsPerRow;
+    protected final long[] bits;
+    // bits of the last word of a row that are inside the map
+    private final long lastWordMask;
+
+    /**
+     * Creates an empty bitboard
+     *
+     * @param width  map width in tiles
+     * @param height map height in tiles
+     */
+    public Bitboard(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("invalid size " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.bits = new long[wordsPerRow * height];
+        this.lastWordMask = -1L >>> (63 - ((width - 1) & 63));
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @param value
+     */
+    public void set(int x, int y, boolean value) {
+        int word = y * wordsPerRow + (x >>> 6);
+        long bit = 1L << (x & 63);
+        if (value) {
+            bits[word] |= bit;
+        } else {
+            bits[word] &= ~bit;
+        }
+    }
+
+    /**
+     * @return the bit of the tile, false outside the map
+     */
+    public boolean get(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        return (bits[y * wordsPerRow + (x >>> 6)] & (1L << (x & 63))) != 0;
+    }
+
+    public Bitboard copy() {
+        Bitboard copy = new Bitboard(width, height);
+        System.arraycopy(bits, 0, copy.bits, 0, bits.length);
+        return copy;
+    }
+
+    public Bitboard clear() {
+        Arrays.fill(bits, 0L);
+        return this;
+    }
+
+    public Bitboard and(Bitboard other) {
+        checkSize(other);
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] &= other.bits[i];
+        }
+        return this;
+    }
+
+    public Bitboard or(Bitboard other) {
+        checkSize(other);
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] |= other.bits[i];
+        }
+        return this;
+    }
+
+    public Bitboard andNot(Bitboard other) {
+        checkSize(other);
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] &= ~other.bits[i];
+        }
+        return this;
+    }
+
+    /**
+     * Flips every bit inside the map
+     */
+    public Bitboard not() {
+        for (int row = 0; row < bits.length; row += wordsPerRow) {
+            for (int word = row; word < row + wordsPerRow - 1; word++) {
+                bits[word] = ~bits[word];
+            }
+            bits[row + wordsPerRow - 1] = ~bits[row + wordsPerRow - 1] & lastWordMask;
+        }
+        return this;
+    }
+
+    /**
+     * Moves every bit by dx tiles to the right and dy tiles down; bits moved out of the map are lost,
+     * the tiles they leave behind are zero. After shift(0, 1) a tile is set if the tile above it was.
+     *
+     * @param dx
+     * @param dy
+     */
+    public Bitboard shift(int dx, int dy) {
+        if (dx >= width || -dx >= width || dy >= height || -dy >= height) {
+            return clear();
+        }
+        if (dy > 0) {
+            System.arraycopy(bits, 0, bits, dy * wordsPerRow, (height - dy) * wordsPerRow);
+            Arrays.fill(bits, 0, dy * wordsPerRow, 0L);
+        } else if (dy < 0) {
+            System.arraycopy(bits, -dy * wordsPerRow, bits, 0, (height + dy) * wordsPerRow);
+            Arrays.fill(bits, (height + dy) * wordsPerRow, bits.length, 0L);
+        }
+        if (dx != 0) {
+            for (int row = 0; row < bits.length; row += wordsPerRow) {
+                shiftRow(row, dx);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Moves the bits of one row, bit x of word w is tile 64 * w + x
+     */
+    private void shiftRow(int row, int dx) {
+        int wordShift = Math.abs(dx) >>> 6;
+        int bitShift = Math.abs(dx) & 63;
+        if (dx > 0) {
+            for (int word = wordsPerRow - 1; word >= 0; word--) {
+                int from = word - wordShift;
+                long value = from >= 0 ? bits[row + from] << bitShift : 0L;
+                if (bitShift != 0 && from > 0) {
+                    value |= bits[row + from - 1] >>> (64 - bitShift);
+                }
+                bits[row + word] = value;
+            }
+            bits[row + wordsPerRow - 1] &= lastWordMask;
+        } else {
+            for (int word = 0; word < wordsPerRow; word++) {
+                int from = word + wordShift;
+                long value = from < wordsPerRow ? bits[row + from] >>> bitShift : 0L;
+                if (bitShift != 0 && from + 1 < wordsPerRow) {
+                    value |= bits[row + from + 1] << (64 - bitShift);
+                }
+                bits[row + word] = value;
+            }
+        }
+    }
+
+    /**
+     * Sets the four neighbours of every set tile
+     */
+    public Bitboard addNeighbours() {
+        Bitboard original = copy();
+        or(original.copy().shift(1, 0));
+        or(original.copy().shift(-1, 0));
+        or(original.copy().shift(0, 1));
+        return or(original.shift(0, -1));
+    }
+
+    /**
+     * Grows the set tiles through their four neighbours as long as the tiles are passable,
+     * afterwards every passable tile that can be reached from a set tile is set.
+     * Rows are swept down and up, and every row is filled to the left and right inside its words,
+     * so corridors in one direction are filled in a single sweep.
+     *
+     * @param passable tiles the fill may enter
+     */
+    public Bitboard fill(Bitboard passable) {
+        and(passable);
+        long[] open = passable.bits;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int row = 0; row < bits.length; row += wordsPerRow) {
+                changed |= spreadRow(row, row - wordsPerRow, open);
+            }
+            for (int row = bits.length - wordsPerRow; row >= 0; row -= wordsPerRow) {
+                changed |= spreadRow(row, row + wordsPerRow, open);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Takes the set tiles of a neighbouring row and spreads them along the row
+     *
+     * @return whether any bit of the row changed
+     */
+    private boolean spreadRow(int row, int neighbour, long[] open) {
+        boolean hasNeighbour = neighbour >= 0 && neighbour < bits.length;
+        boolean changed = false;
+        long carry = 0;
+        // to the right: bit 63 of a word continues at bit 0 of the next one
+        for (int word = 0; word < wordsPerRow; word++) {
+            long before = bits[row + word];
+            long value = before | carry | (hasNeighbour ? bits[neighbour + word] : 0L);
+            value = fillUp(value, open[row + word]);
+            bits[row + word] = value;
+            changed |= value != before;
+            carry = value >>> 63;
+        }
+        carry = 0;
+        for (int word = wordsPerRow - 1; word >= 0; word--) {
+            long before = bits[row + word];
+            long value = fillDown(before | carry, open[row + word]);
+            bits[row + word] = value;
+            changed |= value != before;
+            carry = (value & 1L) << 63;
+        }
+        return changed;
+    }
+
+    /**
+     * Spreads the set bits towards bit 63 through runs of open bits (Kogge-Stone fill)
+     */
+    private static long fillUp(long set, long open) {
+        set &= open;
+        set |= open & (set << 1);
+        open &= open << 1;
+        set |= open & (set << 2);
+        open &= open << 2;
+        set |= open & (set << 4);
+        open &= open << 4;
+        set |= open & (set << 8);
+        open &= open << 8;
+        set |= open & (set << 16);
+        open &= open << 16;
+        return set | (open & (set << 32));
+    }
+
+    /**
+     * Spreads the set bits towards bit 0 through runs of open bits
+     */
+    private static long fillDown(long set, long open) {
+        set &= open;
+        set |= open & (set >>> 1);
+        open &= open >>> 1;
+        set |= open & (set >>> 2);
+        open &= open >>> 2;
+        set |= open & (set >>> 4);
+        open &= open >>> 4;
+        set |= open & (set >>> 8);
+        open &= open >>> 8;
+        set |= open & (set >>> 16);
+        open &= open >>> 16;
+        return set | (open & (set >>> 32));
+    }
+
+    /**
+     * @return number of set tiles
+     */
+    public int count() {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the n-th set tile, counting row by row
+     *
+     * @param n from 0 to count() - 1
+     * @return cell index of the tile (y * width + x), or -1 if fewer tiles are set
+     */
+    public int select(int n) {
+        for (int i = 0; i < bits.length; i++) {
+            long word = bits[i];
+            int count = Long.bitCount(word);
+            if (n < count) {
+                for (; n > 0; n--) {
+                    word &= word - 1; // clear the lowest bit
+                }
+                int y = i / wordsPerRow;
+                int x = ((i % wordsPerRow) << 6) + Long.numberOfTrailingZeros(word);
+                return y * width + x;
+            }
+            n -= count;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the next set tile, row by row
+     *
+     * @param cell cell index (y * width + x) to start at
+     * @return cell index of the first set tile at or after cell, or -1 if there is none
+     */
+    public int nextSetCell(int cell) {
+        if (cell < 0) {
+            cell = 0;
+        }
+        if (cell >= width * height) {
+            return -1;
+        }
+        int y = cell / width;
+        int x = cell % width;
+        int i = y * wordsPerRow + (x >>> 6);
+        long word = bits[i] & (-1L << (x & 63));
+        while (true) {
+            if (word != 0) {
+                return (i / wordsPerRow) * width + ((i % wordsPerRow) << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++i == bits.length) {
+                return -1;
+            }
+            word = bits[i];
+        }
+    }
+
+    /**
+     * @param y
+     * @param word index of the word inside the row, tiles 64 * word to 64 * word + 63
+     * @return the bits of 64 tiles of a row
+     */
+    public long getWord(int y, int word) {
+        return bits[y * wordsPerRow + word];
+    }
+
+    /**
+     * Replaces the bits of 64 tiles of a row, bits past the width of the map have to be zero
+     *
+     * @param y
+     * @param word  index of the word inside the row
+     * @param value
+     */
+    public void setWord(int y, int word, long value) {
+        bits[y * wordsPerRow + word] = value;
+    }
+
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    private void checkSize(Bitboard other) {
+        if (other.width != width || other.height != height) {
+            throw new IllegalArgumentException("bitboards of different sizes");
+        }
+    }
+}
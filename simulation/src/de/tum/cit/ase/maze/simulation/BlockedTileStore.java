@@ -0,0 +1,78 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.util.Arrays;
+
+/**
+ * The BlockedTileStore class keeps the tiles in 8x8 blocks of 64 bytes, one cache line each.
+ * Blocks are stored row by row, and the tiles inside a block row by row, so the 3x3 and 1x3
+ * neighbourhoods used for collisions, wall variants and enemy moves touch one or two cache lines
+ * instead of three rows that are a whole map width apart.
+ */
+public class BlockedTileStore implements TileStore {
+    private static final int BLOCK_SHIFT = 3;
+    private static final int BLOCK_MASK = (1 << BLOCK_SHIFT) - 1;
+
+    private final int width;
+    private final int height;
+    private final int blocksPerRow;
+    private final byte[] tiles;
+
+    /**
+     * Creates a map that is all floor
+     *
+     * @param width
+     * @param height
+     */
+    public BlockedTileStore(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("invalid size " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.blocksPerRow = (width + BLOCK_MASK) >>> BLOCK_SHIFT;
+        long blockRows = (height + BLOCK_MASK) >>> BLOCK_SHIFT;
+        long size = blocksPerRow * blockRows << (2 * BLOCK_SHIFT);
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("map is too large: " + width + "x" + height);
+        }
+        this.tiles = new byte[(int) size];
+        Arrays.fill(tiles, (byte) TileMap.FLOOR);
+    }
+
+    /**
+     * Copies the tiles of another store
+     *
+     * @param store
+     * @return a store with the same tiles in the blocked layout
+     */
+    public static BlockedTileStore copyOf(TileStore store) {
+        BlockedTileStore blocked = new BlockedTileStore(store.getWidth(), store.getHeight());
+        store.forEachTile(blocked::setTile);
+        return blocked;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getTile(int x, int y) {
+        return tiles[index(x, y)];
+    }
+
+    @Override
+    public void setTile(int x, int y, int tileType) {
+        tiles[index(x, y)] = (byte) tileType;
+    }
+
+    private int index(int x, int y) {
+        int block = (y >>> BLOCK_SHIFT) * blocksPerRow + (x >>> BLOCK_SHIFT);
+        return block << (2 * BLOCK_SHIFT) | (y & BLOCK_MASK) << BLOCK_SHIFT | (x & BLOCK_MASK);
+    }
+}
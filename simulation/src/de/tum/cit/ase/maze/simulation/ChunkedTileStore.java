@@ -0,0 +1,504 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The ChunkedTileStore class pages the tiles of a very large map from a file in chunks of 64x64 tiles.
+ * Only a limited number of chunks is kept in memory; the least recently used chunk is evicted first
+ * and written back if one of its tiles was changed. Chunks can be prefetched on a background thread.
+ * <p>
+ * File format: a 16 byte header (magic, version, width, height) followed by the chunks row by row,
+ * each chunk holding its tiles row by row as tile type + 1, so a file full of zeros is all floor.
+ * Chunks past the end of the file are floor, which makes new files cheap to create.
+ * <p>
+ * The tiles that are neither floor nor wall (entries, exits, keys, enemies, ...) are also kept in memory and
+ * written to an index next to the file (INDEX_EXTENSION appended to its name): a header (magic, version, width,
+ * height, count) followed by the cell index and tile type of each. TileMap collects its entity lists from it,
+ * so loading a map doesn't page in every chunk. An index that is missing, or older than the file because
+ * the chunks were written without it, is built again by reading all chunks once.
+ * <p>
+ * Like the rest of the simulation, the store is used from one thread; only the file reads of prefetched
+ * chunks run in the background, and they are handed over the next time the store is used.
+ */
+public class ChunkedTileStore implements TileStore {
+    public static final String EXTENSION = ".chunks";
+    public static final String INDEX_EXTENSION = ".index";
+    public static final int CHUNK_SIZE = 64;
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int CHUNK_BYTES = CHUNK_SIZE * CHUNK_SIZE;
+    private static final int MAGIC = 0x4D415A43; // "MAZC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int INDEX_MAGIC = 0x4D415A49; // "MAZI"
+    private static final int INDEX_VERSION = 1;
+    private static final int INDEX_HEADER_SIZE = 20;
+    private static final int INDEX_ENTRY_SIZE = 5;
+
+    private final FileChannel channel;
+    private final Path indexFile;
+    private final int width;
+    private final int height;
+    private final int chunksX;
+    private final int chunksY;
+    private final int maxChunks;
+
+    // the tiles that are neither floor nor wall, saved to the index file by flush
+    private final SparseTileStore entities;
+    private boolean entitiesChanged = false;
+
+    // resident chunks in access order, the first one is evicted next
+    private final LinkedHashMap<Integer, Chunk> chunks = new LinkedHashMap<>(64, 0.75f, true);
+    // most tile accesses hit the same chunk as the one before
+    private int lastIndex = -1;
+    private Chunk lastChunk;
+
+    // chunk -> number of the prefetch request that is loading it
+    private final Map<Integer, Integer> pending = new HashMap<>();
+    private final ConcurrentLinkedQueue<Chunk> prefetched = new ConcurrentLinkedQueue<>();
+    private ExecutorService loader;
+    private int nextRequest = 0;
+
+    private long chunksLoaded = 0;
+    private long chunksPrefetched = 0;
+    private long chunksEvicted = 0;
+    private long chunksWritten = 0;
+    // chunksWritten when the index was last read or written, it is outdated once chunks were written since
+    private long indexWrittenAt = 0;
+
+    private static class Chunk {
+        private final int index;
+        private final byte[] tiles;
+        private final int request;
+        private boolean dirty;
+
+        Chunk(int index, byte[] tiles, int request) {
+            this.index = index;
+            this.tiles = tiles;
+            this.request = request;
+        }
+    }
+
+    private ChunkedTileStore(FileChannel channel, Path file, int width, int height, long memoryBudget) {
+        this.channel = channel;
+        this.indexFile = file.resolveSibling(file.getFileName() + INDEX_EXTENSION);
+        this.width = width;
+        this.height = height;
+        this.chunksX = (width + CHUNK_MASK) >>> CHUNK_SHIFT;
+        this.chunksY = (height + CHUNK_MASK) >>> CHUNK_SHIFT;
+        this.maxChunks = (int) Math.max(4, Math.min(Integer.MAX_VALUE, memoryBudget / CHUNK_BYTES));
+        this.entities = new SparseTileStore(width, height, 16);
+    }
+
+    /**
+     * Opens a chunked level for reading and writing
+     *
+     * @param file
+     * @param memoryBudget bytes of tiles kept in memory at most
+     * @throws IOException if the file can't be opened or is not a chunked level
+     */
+    public static ChunkedTileStore open(Path file, long memoryBudget) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // read until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException("not a chunked level: " + file);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("unsupported chunked level version " + version);
+            }
+            int width = header.getInt();
+            int height = header.getInt();
+            if (width <= 0 || height <= 0) {
+                throw new IOException("invalid chunked level size " + width + "x" + height);
+            }
+            ChunkedTileStore store = new ChunkedTileStore(channel, file, width, height, memoryBudget);
+            if (!store.readIndex(file)) {
+                store.buildIndex();
+            }
+            return store;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a chunked level that is all floor. Existing files are overwritten.
+     *
+     * @param file
+     * @param width
+     * @param height
+     * @param memoryBudget bytes of tiles kept in memory at most
+     * @throws IOException if the file can't be created
+     */
+    public static ChunkedTileStore create(Path file, int width, int height, long memoryBudget) throws IOException {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("invalid size " + width + "x" + height);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).flip();
+        writeFully(channel, header, 0);
+        ChunkedTileStore store = new ChunkedTileStore(channel, file, width, height, memoryBudget);
+        store.entitiesChanged = true; // an index of the old file would be wrong
+        return store;
+    }
+
+    /**
+     * Writes a map as chunked level
+     *
+     * @param map  tile types indexed by [x][y], all columns have the same height
+     * @param file
+     * @throws IOException if the file can't be written
+     */
+    public static void write(int[][] map, Path file) throws IOException {
+        ChunkedTileStore store = create(file, map.length, map[0].length, CHUNK_BYTES);
+        try {
+            byte[] tiles = new byte[CHUNK_BYTES];
+            for (int cy = 0; cy < store.chunksY; cy++) {
+                for (int cx = 0; cx < store.chunksX; cx++) {
+                    for (int y = 0; y < CHUNK_SIZE; y++) {
+                        for (int x = 0; x < CHUNK_SIZE; x++) {
+                            int mapX = (cx << CHUNK_SHIFT) + x;
+                            int mapY = (cy << CHUNK_SHIFT) + y;
+                            boolean inside = mapX < store.width && mapY < store.height;
+                            int tileType = inside ? map[mapX][mapY] : TileMap.FLOOR;
+                            tiles[(y << CHUNK_SHIFT) + x] = (byte) (tileType + 1);
+                            if (tileType != TileMap.FLOOR && tileType != TileMap.WALL) {
+                                store.entities.setTile(mapX, mapY, tileType);
+                            }
+                        }
+                    }
+                    store.writeChunk(cy * store.chunksX + cx, tiles);
+                }
+            }
+        } finally {
+            store.close();
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getTile(int x, int y) {
+        return chunk(x, y).tiles[((y & CHUNK_MASK) << CHUNK_SHIFT) + (x & CHUNK_MASK)] - 1;
+    }
+
+    @Override
+    public void setTile(int x, int y, int tileType) {
+        Chunk chunk = chunk(x, y);
+        chunk.tiles[((y & CHUNK_MASK) << CHUNK_SHIFT) + (x & CHUNK_MASK)] = (byte) (tileType + 1);
+        chunk.dirty = true;
+        // walls are not indexed, setting floor removes the tile from the index
+        entities.setTile(x, y, tileType == TileMap.WALL ? TileMap.FLOOR : tileType);
+        entitiesChanged = true;
+    }
+
+    @Override
+    public boolean isDense() {
+        return false;
+    }
+
+    /**
+     * Visits the indexed tiles, without loading any chunk
+     */
+    @Override
+    public void forEachEntity(TileVisitor visitor) {
+        entities.forEachTile(visitor);
+    }
+
+    /**
+     * Starts loading the chunks inside the (inclusive) rectangle in the background.
+     * At most half of the memory budget is prefetched at once, so the chunks in use are not evicted.
+     */
+    @Override
+    public void prefetch(int minX, int minY, int maxX, int maxY) {
+        installPrefetched();
+        int minCx = Math.max(0, minX) >>> CHUNK_SHIFT;
+        int minCy = Math.max(0, minY) >>> CHUNK_SHIFT;
+        int maxCx = Math.min(maxX, width - 1) >>> CHUNK_SHIFT;
+        int maxCy = Math.min(maxY, height - 1) >>> CHUNK_SHIFT;
+        int budget = maxChunks / 2 - pending.size();
+        for (int cy = minCy; cy <= maxCy && budget > 0; cy++) {
+            for (int cx = minCx; cx <= maxCx && budget > 0; cx++) {
+                int index = cy * chunksX + cx;
+                if (chunks.containsKey(index) || pending.containsKey(index)) {
+                    continue;
+                }
+                int request = ++nextRequest;
+                pending.put(index, request);
+                loader().execute(() -> {
+                    byte[] tiles;
+                    try {
+                        tiles = readChunk(index);
+                    } catch (IOException e) {
+                        tiles = null; // loaded again when it is needed
+                    }
+                    prefetched.add(new Chunk(index, tiles, request));
+                });
+                budget--;
+            }
+        }
+    }
+
+    /**
+     * Writes all changed chunks back to the file, then the index if anything was written since it was read
+     */
+    @Override
+    public void flush() throws IOException {
+        for (Chunk chunk : chunks.values()) {
+            if (chunk.dirty) {
+                writeBack(chunk);
+            }
+        }
+        if (entitiesChanged || chunksWritten > indexWrittenAt) {
+            writeIndex();
+        }
+    }
+
+    /**
+     * Reads the index next to the file
+     *
+     * @param file the chunked level
+     * @return false if there is no index, or it doesn't belong to the file or is older than it
+     * @throws IOException if the index can't be read
+     */
+    private boolean readIndex(Path file) throws IOException {
+        if (!Files.isRegularFile(indexFile)
+                || Files.getLastModifiedTime(indexFile).compareTo(Files.getLastModifiedTime(file)) < 0) {
+            return false;
+        }
+        try (FileChannel index = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            long size = index.size();
+            if (size < INDEX_HEADER_SIZE || size > Integer.MAX_VALUE) {
+                return false;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && index.read(buffer) >= 0) {
+                // read until the buffer is full or the file ends
+            }
+            buffer.flip();
+            if (buffer.getInt() != INDEX_MAGIC || buffer.getInt() != INDEX_VERSION
+                    || buffer.getInt() != width || buffer.getInt() != height) {
+                return false;
+            }
+            int count = buffer.getInt();
+            if (count < 0 || buffer.remaining() != (long) count * INDEX_ENTRY_SIZE) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                int cell = buffer.getInt(INDEX_HEADER_SIZE + i * INDEX_ENTRY_SIZE);
+                if (cell < 0 || cell >= (long) width * height) {
+                    return false;
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                int cell = buffer.getInt();
+                entities.setTile(cell % width, cell / width, buffer.get());
+            }
+        }
+        indexWrittenAt = chunksWritten;
+        return true;
+    }
+
+    /**
+     * Collects the indexed tiles by reading every chunk once, for files without a valid index
+     */
+    private void buildIndex() {
+        forEachTile((x, y, tileType) -> {
+            if (tileType != TileMap.WALL) {
+                entities.setTile(x, y, tileType);
+            }
+        });
+        entitiesChanged = true;
+    }
+
+    private void writeIndex() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(INDEX_HEADER_SIZE + entities.size() * INDEX_ENTRY_SIZE);
+        buffer.putInt(INDEX_MAGIC).putInt(INDEX_VERSION).putInt(width).putInt(height).putInt(entities.size());
+        entities.forEachTile((x, y, tileType) -> buffer.putInt(y * width + x).put((byte) tileType));
+        buffer.flip();
+        try (FileChannel index = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(index, buffer, 0);
+        }
+        entitiesChanged = false;
+        indexWrittenAt = chunksWritten;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (loader != null) {
+                loader.shutdownNow();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Returns the chunk holding the tile, loading it from the file if it is not in memory
+     */
+    private Chunk chunk(int x, int y) {
+        int index = (y >>> CHUNK_SHIFT) * chunksX + (x >>> CHUNK_SHIFT);
+        if (index == lastIndex) {
+            return lastChunk;
+        }
+        installPrefetched();
+        Chunk chunk = chunks.get(index);
+        if (chunk == null) {
+            try {
+                chunk = new Chunk(index, readChunk(index), 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // a prefetch of this chunk that is still running would bring back older tiles
+            pending.remove(index);
+            chunksLoaded++;
+            install(chunk);
+        }
+        lastIndex = index;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    /**
+     * Adds the chunks the loader thread has finished, unless they were loaded on demand in the meantime
+     */
+    private void installPrefetched() {
+        Chunk chunk;
+        while ((chunk = prefetched.poll()) != null) {
+            Integer request = pending.get(chunk.index);
+            if (request == null || request != chunk.request) {
+                continue; // outdated
+            }
+            pending.remove(chunk.index);
+            if (chunk.tiles != null && !chunks.containsKey(chunk.index)) {
+                chunksPrefetched++;
+                install(chunk);
+            }
+        }
+    }
+
+    /**
+     * Adds a chunk and evicts the least recently used chunks that exceed the memory budget
+     */
+    private void install(Chunk chunk) {
+        chunks.put(chunk.index, chunk);
+        Iterator<Chunk> eldest = chunks.values().iterator();
+        while (chunks.size() > maxChunks) {
+            Chunk evicted = eldest.next();
+            if (evicted.dirty) {
+                try {
+                    writeBack(evicted);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            eldest.remove();
+            chunksEvicted++;
+            if (evicted.index == lastIndex) {
+                lastIndex = -1;
+                lastChunk = null;
+            }
+        }
+    }
+
+    private byte[] readChunk(int index) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES);
+        long offset = chunkOffset(index);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                break; // the rest of the chunk is floor
+            }
+        }
+        return buffer.array();
+    }
+
+    private void writeBack(Chunk chunk) throws IOException {
+        writeChunk(chunk.index, chunk.tiles);
+        chunk.dirty = false;
+    }
+
+    private void writeChunk(int index, byte[] tiles) throws IOException {
+        writeFully(channel, ByteBuffer.wrap(tiles), chunkOffset(index));
+        chunksWritten++;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+    }
+
+    private static long chunkOffset(int index) {
+        return HEADER_SIZE + (long) index * CHUNK_BYTES;
+    }
+
+    private ExecutorService loader() {
+        if (loader == null) {
+            loader = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "chunk-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return loader;
+    }
+
+    public int getResidentChunks() {
+        return chunks.size();
+    }
+
+    public int getMaxChunks() {
+        return maxChunks;
+    }
+
+    public long getChunksLoaded() {
+        return chunksLoaded;
+    }
+
+    public long getChunksPrefetched() {
+        return chunksPrefetched;
+    }
+
+    public long getChunksEvicted() {
+        return chunksEvicted;
+    }
+
+    public long getChunksWritten() {
+        return chunksWritten;
+    }
+}
@@ -0,0 +1,16 @@
+package de.tum.cit.ase.maze.simulation;
+
+/**
+ * Bit flags for the buttons held during a simulation tick.
+ * They are combined with | and passed to Simulation.tick.
+ */
+public final class Controls {
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int UP = 1 << 2;
+    public static final int DOWN = 1 << 3;
+    public static final int ATTACK = 1 << 4;
+
+    private Controls() {
+    }
+}
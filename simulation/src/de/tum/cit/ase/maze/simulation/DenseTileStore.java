@@ -0,0 +1,65 @@
+package de.tum.cit.ase.maze.simulation;
+
+/**
+ * The DenseTileStore class keeps all tiles in one byte array, row by row (index = y * width + x).
+ */
+public class DenseTileStore implements TileStore {
+    private final int width;
+    private final int height;
+    private final byte[] tiles;
+
+    /**
+     * @param width
+     * @param height
+     * @param tiles  tile types, index = y * width + x; the array is used directly, not copied
+     */
+    public DenseTileStore(int width, int height, byte[] tiles) {
+        if (width <= 0 || height <= 0 || (long) width * height != tiles.length) {
+            throw new IllegalArgumentException("tiles don't match the size " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.tiles = tiles;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getTile(int x, int y) {
+        return tiles[y * width + x];
+    }
+
+    @Override
+    public void setTile(int x, int y, int tileType) {
+        tiles[y * width + x] = (byte) tileType;
+    }
+
+    /**
+     * Compares the tiles of a row 64 at a time and writes every result as one word
+     */
+    @Override
+    public Bitboard getLayer(int tileType) {
+        Bitboard layer = new Bitboard(width, height);
+        byte type = (byte) tileType;
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int start = 0; start < width; start += 64) {
+                int end = Math.min(start + 64, width);
+                long word = 0;
+                for (int x = start; x < end; x++) {
+                    word |= (tiles[row + x] == type ? 1L : 0L) << (x - start);
+                }
+                layer.setWord(y, start >>> 6, word);
+            }
+        }
+        return layer;
+    }
+}
@@ -0,0 +1,276 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.util.Arrays;
+
+/**
+ * The EnemyPerception class decides which enemies notice the player. An enemy becomes aggressive
+ * when the player is within its sight radius and no wall or exit blocks the line between them
+ * (see SolidBitmap.hasLineOfSight), and stays aggressive for AGGRO_MEMORY enemy moves after losing sight.
+ * <p>
+ * Only the tiles within the largest radius around the player are looked at, and enemies farther away
+ * than their own radius are skipped without a ray, so an update doesn't depend on the number of enemies
+ * on the map. At most rayBudget rays are cast per update; enemies that don't get one keep their state
+ * and go first in the next update.
+ * Results are cached in a square around the player by the tile of the enemy, so enemies that walk
+ * onto a tile that was already tested, or stand still, don't cast again until the player changes
+ * tiles or a solid tile changes.
+ * <p>
+ * The state of every enemy (its radius and remaining aggro) takes one byte per tile and moves with
+ * the enemy, see enemyMoved; an enemy that is placed in any other way starts with a new state.
+ * Maps without a solid bitmap (stores that aren't dense) have no perception: every enemy is aggressive.
+ */
+public class EnemyPerception implements TileListener {
+    public static final int DEFAULT_MIN_RADIUS = 5;
+    public static final int DEFAULT_MAX_RADIUS = 10;
+    public static final int DEFAULT_RAY_BUDGET = 512;
+    public static final int AGGRO_MEMORY = 3; // enemy moves an enemy keeps chasing without seeing the player
+
+    // state of an enemy: bits 0-5 sight radius (0 for tiles without an enemy), bits 6-7 remaining aggro
+    private static final int RADIUS_MASK = 0x3F;
+    private static final int AGGRO_SHIFT = 6;
+    // cached ray results
+    private static final byte UNKNOWN = 0;
+    private static final byte VISIBLE = 1;
+    private static final byte BLOCKED = 2;
+
+    private final TileMap tiles;
+    private final int minRadius;
+    private final int maxRadius;
+    private final int rayBudget;
+    private byte[] states;
+
+    // results by enemy tile in the square of side 2 * maxRadius + 1 around the player
+    private final int side;
+    private final byte[] cache;
+    private int cacheX = -1;
+    private int cacheY = -1;
+    private boolean cacheValid = false;
+
+    // position in the square around the player to start at, after an update ran out of rays
+    private int nextTile = 0;
+    // enemies with remaining aggro
+    private final EntityList aggressive = new EntityList();
+
+    private long raysCast = 0;
+    private long cacheHits = 0;
+
+    /**
+     * Creates the perception and registers it as a listener of the map, which may already be loaded
+     *
+     * @param tiles
+     * @param minRadius smallest sight radius of an enemy in tiles, each enemy gets one between min and max
+     * @param maxRadius largest sight radius, at most 63
+     * @param rayBudget rays cast at most per update
+     */
+    public EnemyPerception(TileMap tiles, int minRadius, int maxRadius, int rayBudget) {
+        if (minRadius < 0 || maxRadius < minRadius || maxRadius > RADIUS_MASK) {
+            throw new IllegalArgumentException("invalid sight radius " + minRadius + " to " + maxRadius);
+        }
+        this.tiles = tiles;
+        this.minRadius = minRadius;
+        this.maxRadius = maxRadius;
+        this.rayBudget = rayBudget;
+        this.side = 2 * maxRadius + 1;
+        this.cache = new byte[side * side];
+        tiles.addListener(this);
+        if (tiles.isLoaded()) {
+            mapLoaded(tiles.getWidth(), tiles.getHeight());
+        }
+    }
+
+    /**
+     * Stops listening to the map, the perception can't be used afterwards
+     */
+    public void detach() {
+        tiles.removeListener(this);
+    }
+
+    /**
+     * Lets the enemies look for the player, should be called before the enemies move
+     *
+     * @param playerX tile of the player
+     * @param playerY
+     */
+    public void update(int playerX, int playerY) {
+        SolidBitmap solid = tiles.getSolid();
+        if (states == null || solid == null || !tiles.isWithinBounds(playerX, playerY)) {
+            return;
+        }
+        if (!cacheValid || playerX != cacheX || playerY != cacheY) {
+            Arrays.fill(cache, UNKNOWN);
+            cacheX = playerX;
+            cacheY = playerY;
+            cacheValid = true;
+        }
+        // aggressive enemies that walked out of their range forget the player at once
+        for (int i = aggressive.size() - 1; i >= 0; i--) {
+            int cell = aggressive.get(i);
+            int radius = states[cell] & RADIUS_MASK;
+            if (!inRange(tiles.cellX(cell) - playerX, tiles.cellY(cell) - playerY, radius)) {
+                states[cell] = (byte) radius;
+                aggressive.remove(cell);
+            }
+        }
+
+        // no enemy sees farther than maxRadius, so only the tiles of the square around the player are looked at
+        int minX = Math.max(playerX - maxRadius, 0);
+        int minY = Math.max(playerY - maxRadius, 0);
+        int columns = Math.min(playerX + maxRadius, tiles.getWidth() - 1) - minX + 1;
+        int count = columns * (Math.min(playerY + maxRadius, tiles.getHeight() - 1) - minY + 1);
+        int rays = rayBudget;
+        int first = nextTile % count;
+        int skipped = -1;
+        for (int i = 0; i < count; i++) {
+            int position = (first + i) % count;
+            int x = minX + position % columns;
+            int y = minY + position / columns;
+            int cell = tiles.cellIndex(x, y);
+            int state = states[cell] & 0xFF;
+            int radius = state & RADIUS_MASK;
+            if (radius == 0 || !inRange(x - playerX, y - playerY, radius)) {
+                continue; // no enemy, or the player is out of its sight range
+            }
+            int index = (y - playerY + maxRadius) * side + x - playerX + maxRadius;
+            byte result = cache[index];
+            if (result == UNKNOWN) {
+                if (rays == 0) {
+                    if (skipped < 0) {
+                        skipped = position;
+                    }
+                    continue;
+                }
+                rays--;
+                raysCast++;
+                result = solid.hasLineOfSight(x, y, playerX, playerY) ? VISIBLE : BLOCKED;
+                cache[index] = result;
+            } else {
+                cacheHits++;
+            }
+            int aggro = result == VISIBLE ? AGGRO_MEMORY : Math.max((state >>> AGGRO_SHIFT) - 1, 0);
+            states[cell] = (byte) (radius | aggro << AGGRO_SHIFT);
+            if (aggro > 0) {
+                aggressive.add(cell);
+            } else {
+                aggressive.remove(cell);
+            }
+        }
+        nextTile = skipped >= 0 ? skipped : first;
+    }
+
+    private static boolean inRange(int dx, int dy, int radius) {
+        return dx * dx + dy * dy <= radius * radius;
+    }
+
+    /**
+     * @param cell tile of an enemy
+     * @return whether the enemy chases the player
+     */
+    public boolean isAggressive(int cell) {
+        return states == null || tiles.getSolid() == null || (states[cell] & 0xFF) >>> AGGRO_SHIFT > 0;
+    }
+
+    /**
+     * Changes the sight radius of the enemy on the tile
+     *
+     * @param x
+     * @param y
+     * @param radius in tiles, from 1 to the maximum radius
+     */
+    public void setSightRadius(int x, int y, int radius) {
+        if (radius < 1 || radius > maxRadius) {
+            throw new IllegalArgumentException("sight radius " + radius + " outside of 1 to " + maxRadius);
+        }
+        int cell = tiles.cellIndex(x, y);
+        if (states != null && tiles.getTile(x, y) == TileMap.ENEMY) {
+            states[cell] = (byte) (states[cell] & ~RADIUS_MASK | radius);
+        }
+    }
+
+    /**
+     * @return sight radius of the enemy on the tile, 0 if there is none
+     */
+    public int getSightRadius(int x, int y) {
+        return states == null ? 0 : states[tiles.cellIndex(x, y)] & RADIUS_MASK;
+    }
+
+    /**
+     * Every enemy gets a radius between min and max from its tile, so the same map always looks the same
+     */
+    private int initialState(int cell) {
+        int hash = cell * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        return Math.max(1, minRadius + Math.floorMod(hash, maxRadius - minRadius + 1));
+    }
+
+    @Override
+    public void mapLoaded(int width, int height) {
+        cacheValid = false;
+        nextTile = 0;
+        aggressive.clear();
+        if (tiles.getSolid() == null) {
+            states = null;
+            return;
+        }
+        if (states == null || states.length != width * height) {
+            states = new byte[width * height];
+        } else {
+            Arrays.fill(states, (byte) 0);
+        }
+        EntityList enemies = tiles.getEntities(TileMap.ENEMY);
+        for (int i = 0; i < enemies.size(); i++) {
+            states[enemies.get(i)] = (byte) initialState(enemies.get(i));
+        }
+    }
+
+    @Override
+    public void tileChanged(int x, int y, int oldType, int newType) {
+        if (oldType == newType || states == null) {
+            return;
+        }
+        if (TileMap.isSolid(oldType) != TileMap.isSolid(newType)) {
+            cacheValid = false;
+        }
+        int cell = tiles.cellIndex(x, y);
+        if (oldType == TileMap.ENEMY) {
+            states[cell] = 0;
+            aggressive.remove(cell);
+        } else if (newType == TileMap.ENEMY) {
+            states[cell] = (byte) initialState(cell);
+        }
+    }
+
+    @Override
+    public void enemyMoved(int fromX, int fromY, int toX, int toY) {
+        if (states == null) {
+            return;
+        }
+        int from = tiles.cellIndex(fromX, fromY);
+        int to = tiles.cellIndex(toX, toY);
+        states[to] = states[from];
+        states[from] = 0;
+        if (aggressive.remove(from)) {
+            aggressive.add(to);
+        }
+    }
+
+    /**
+     * @return number of enemies that are aggressive, for metrics
+     */
+    public int countAggressive() {
+        return states == null || tiles.getSolid() == null ? tiles.getEntities(TileMap.ENEMY).size() : aggressive.size();
+    }
+
+    /**
+     * @return number of rays cast so far, for benchmarks
+     */
+    public long getRaysCast() {
+        return raysCast;
+    }
+
+    /**
+     * @return number of enemies that used a cached result so far, for benchmarks
+     */
+    public long getCacheHits() {
+        return cacheHits;
+    }
+}
@@ -0,0 +1,247 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The EnemyScheduler class moves enemies with a level of detail that depends on their distance to the player.
+ * The map is split into square regions of REGION_SIZE tiles, each keeping a list of its enemies:
+ * <ul>
+ *     <li>regions within the active radius move every enemy move,</li>
+ *     <li>regions within the reduced radius move every REDUCED_INTERVAL enemy moves, staggered by region,</li>
+ *     <li>regions farther away sleep and their enemies aren't touched at all.</li>
+ * </ul>
+ * When a sleeping region wakes up because the player came closer, its enemies catch up on the moves
+ * they would have made at the reduced rate with random steps, at most CATCH_UP_STEPS each. Far from the
+ * player enemies only walk randomly, so these steps end up where the missed moves would have, on average.
+ * An update costs the enemies near the player instead of all enemies of the map.
+ * With radii that cover the whole map, every enemy moves every time.
+ */
+public class EnemyScheduler implements TileListener {
+    public static final int REGION_SIZE = 32;
+    public static final int DEFAULT_ACTIVE_RADIUS = FlowField.DEFAULT_RADIUS;
+    public static final int DEFAULT_REDUCED_RADIUS = 128;
+    public static final int REDUCED_INTERVAL = 4;
+    public static final int CATCH_UP_STEPS = 32;
+    private static final int REGION_SHIFT = 5;
+
+    private final TileMap tiles;
+    private final int activeRadius;
+    private final int reducedRadius;
+    private int regionsX;
+    private int regionsY;
+    // enemies by region, index = regionY * regionsX + regionX; null for regions that never had an enemy
+    private EntityList[] regions = new EntityList[0];
+    // last enemy move in which the region moved
+    private long[] lastMoves = new long[0];
+    private long moveCount = 0;
+    private int[] moving = new int[64];
+    private int[] wakingUp = new int[16];
+    private int[] wakingSteps = new int[16];
+
+    private int activeCount = 0;
+    private int reducedCount = 0;
+    private int sleepingCount = 0;
+    private long catchUpSteps = 0;
+
+    /**
+     * Creates the scheduler and registers it as a listener of the map, which may already be loaded
+     *
+     * @param tiles
+     * @param activeRadius  regions closer to the player (in tiles, in x and y) move at full rate,
+     *                      at least the radius of the flow field, so every chasing enemy is active
+     * @param reducedRadius regions closer than this move at the reduced rate, the others sleep
+     */
+    public EnemyScheduler(TileMap tiles, int activeRadius, int reducedRadius) {
+        if (activeRadius < 0 || reducedRadius < activeRadius) {
+            throw new IllegalArgumentException("invalid radii " + activeRadius + " and " + reducedRadius);
+        }
+        this.tiles = tiles;
+        this.activeRadius = activeRadius;
+        this.reducedRadius = reducedRadius;
+        tiles.addListener(this);
+        if (tiles.isLoaded()) {
+            mapLoaded(tiles.getWidth(), tiles.getHeight());
+        }
+    }
+
+    /**
+     * Stops listening to the map, the scheduler can't be used afterwards
+     */
+    public void detach() {
+        tiles.removeListener(this);
+    }
+
+    /**
+     * Moves the enemies of all regions that are due one step, see TileMap.moveEnemy
+     *
+     * @param playerX    tile of the player
+     * @param playerY
+     * @param random
+     * @param field      flow field towards the player, already updated; null to move all enemies randomly
+     * @param perception decides which enemies noticed the player, already updated; null if all of them did
+     */
+    public void moveEnemies(int playerX, int playerY, Random random, FlowField field, EnemyPerception perception) {
+        moveCount++;
+        int minRegionX = Math.max((playerX - reducedRadius) >> REGION_SHIFT, 0);
+        int minRegionY = Math.max((playerY - reducedRadius) >> REGION_SHIFT, 0);
+        int maxRegionX = Math.min((playerX + reducedRadius) >> REGION_SHIFT, regionsX - 1);
+        int maxRegionY = Math.min((playerY + reducedRadius) >> REGION_SHIFT, regionsY - 1);
+
+        // enemies of regions that woke up catch up first, each once, even if it walks into another region
+        int wakingCount = 0;
+        for (int regionY = minRegionY; regionY <= maxRegionY; regionY++) {
+            for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+                int region = regionY * regionsX + regionX;
+                if (!isDue(playerX, playerY, regionX, regionY)) {
+                    continue;
+                }
+                long missed = (moveCount - lastMoves[region] - 1) / REDUCED_INTERVAL;
+                lastMoves[region] = moveCount;
+                EntityList enemies = regions[region];
+                if (missed > 0 && enemies != null) {
+                    wakingUp = ensureCapacity(wakingUp, wakingCount + enemies.size());
+                    wakingSteps = ensureCapacity(wakingSteps, wakingCount + enemies.size());
+                    for (int i = 0; i < enemies.size(); i++) {
+                        wakingUp[wakingCount] = enemies.get(i);
+                        wakingSteps[wakingCount++] = (int) Math.min(missed, CATCH_UP_STEPS);
+                    }
+                }
+            }
+        }
+        catchUp(wakingCount, random);
+
+        // then the enemies of the due regions are collected, moving changes the lists
+        activeCount = 0;
+        reducedCount = 0;
+        int count = 0;
+        for (int regionY = minRegionY; regionY <= maxRegionY; regionY++) {
+            for (int regionX = minRegionX; regionX <= maxRegionX; regionX++) {
+                EntityList enemies = regions[regionY * regionsX + regionX];
+                if (enemies == null || enemies.size() == 0) {
+                    continue;
+                }
+                if (distanceToRegion(playerX, playerY, regionX, regionY) <= activeRadius) {
+                    activeCount += enemies.size();
+                } else {
+                    reducedCount += enemies.size();
+                }
+                if (isDue(playerX, playerY, regionX, regionY)) {
+                    moving = ensureCapacity(moving, count + enemies.size());
+                    for (int i = 0; i < enemies.size(); i++) {
+                        moving[count++] = enemies.get(i);
+                    }
+                }
+            }
+        }
+        sleepingCount = tiles.getEntities(TileMap.ENEMY).size() - activeCount - reducedCount;
+
+        for (int i = 0; i < count; i++) {
+            tiles.moveEnemy(moving[i], random, field, perception);
+        }
+    }
+
+    /**
+     * @return whether the enemies of a region within the reduced radius move in this enemy move
+     */
+    private boolean isDue(int playerX, int playerY, int regionX, int regionY) {
+        return distanceToRegion(playerX, playerY, regionX, regionY) <= activeRadius
+                || (moveCount + regionX + 2 * regionY) % REDUCED_INTERVAL == 0;
+    }
+
+    /**
+     * Lets the enemies that woke up walk randomly, far from the player this is where their missed moves lead
+     */
+    private void catchUp(int count, Random random) {
+        for (int i = 0; i < count; i++) {
+            int cell = wakingUp[i];
+            for (int step = 0; step < wakingSteps[i]; step++) {
+                cell = tiles.moveEnemy(cell, random, null, null);
+            }
+            catchUpSteps += wakingSteps[i];
+        }
+    }
+
+    /**
+     * @return distance in tiles (the larger one of x and y) from the player to the closest tile of the region
+     */
+    private static int distanceToRegion(int playerX, int playerY, int regionX, int regionY) {
+        int minX = regionX << REGION_SHIFT;
+        int minY = regionY << REGION_SHIFT;
+        int dx = Math.max(Math.max(minX - playerX, playerX - (minX + REGION_SIZE - 1)), 0);
+        int dy = Math.max(Math.max(minY - playerY, playerY - (minY + REGION_SIZE - 1)), 0);
+        return Math.max(dx, dy);
+    }
+
+    private int regionOf(int x, int y) {
+        return (y >> REGION_SHIFT) * regionsX + (x >> REGION_SHIFT);
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        return array.length >= size ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
+    @Override
+    public void mapLoaded(int width, int height) {
+        regionsX = (width + REGION_SIZE - 1) >> REGION_SHIFT;
+        regionsY = (height + REGION_SIZE - 1) >> REGION_SHIFT;
+        regions = new EntityList[regionsX * regionsY];
+        lastMoves = new long[regionsX * regionsY];
+        moveCount = 0;
+        EntityList enemies = tiles.getEntities(TileMap.ENEMY);
+        for (int i = 0; i < enemies.size(); i++) {
+            int cell = enemies.get(i);
+            addEnemy(regionOf(tiles.cellX(cell), tiles.cellY(cell)), cell);
+        }
+        activeCount = 0;
+        reducedCount = 0;
+        sleepingCount = enemies.size();
+    }
+
+    @Override
+    public void tileChanged(int x, int y, int oldType, int newType) {
+        if (oldType == newType) {
+            return;
+        }
+        if (oldType == TileMap.ENEMY) {
+            regions[regionOf(x, y)].remove(tiles.cellIndex(x, y));
+        } else if (newType == TileMap.ENEMY) {
+            addEnemy(regionOf(x, y), tiles.cellIndex(x, y));
+        }
+    }
+
+    private void addEnemy(int region, int cell) {
+        if (regions[region] == null) {
+            regions[region] = new EntityList();
+        }
+        regions[region].add(cell);
+    }
+
+    /**
+     * @return number of enemies that moved at full rate in the last update
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * @return number of enemies in regions with the reduced rate in the last update, moved or not
+     */
+    public int getReducedCount() {
+        return reducedCount;
+    }
+
+    /**
+     * @return number of enemies that slept in the last update
+     */
+    public int getSleepingCount() {
+        return sleepingCount;
+    }
+
+    /**
+     * @return number of random steps made to catch up after waking up so far, for benchmarks
+     */
+    public long getCatchUpSteps() {
+        return catchUpSteps;
+    }
+}
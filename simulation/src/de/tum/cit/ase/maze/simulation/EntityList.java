@@ -0,0 +1,157 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.util.Arrays;
+
+/**
+ * The EntityList class keeps the cells of all objects of one tile type (for example all enemies).
+ * Cells are stored densely, so they can be iterated without scanning the whole map,
+ * and a small hash table from cell to position allows adding and removing in constant time.
+ */
+public class EntityList {
+    private static final int EMPTY = -1;
+
+    private int[] cells = new int[16];
+    private int size = 0;
+
+    // open addressing table: cell -> position in cells
+    private int[] tableCells;
+    private int[] tablePositions;
+    private int mask;
+
+    public EntityList() {
+        allocateTable(32);
+    }
+
+    /**
+     * Adds a cell. Cells that are already in the list are ignored.
+     *
+     * @param cell cell index, see TileMap.cellIndex
+     */
+    public void add(int cell) {
+        if (find(cell) >= 0) {
+            return;
+        }
+        if (size == cells.length) {
+            cells = Arrays.copyOf(cells, size * 2);
+        }
+        // keep the table at most half full
+        if ((size + 1) * 2 > tableCells.length) {
+            allocateTable(tableCells.length * 2);
+            for (int i = 0; i < size; i++) {
+                insert(cells[i], i);
+            }
+        }
+        cells[size] = cell;
+        insert(cell, size);
+        size++;
+    }
+
+    /**
+     * Removes a cell by moving the last cell into its place
+     *
+     * @param cell
+     * @return whether the cell was in the list
+     */
+    public boolean remove(int cell) {
+        int slot = find(cell);
+        if (slot < 0) {
+            return false;
+        }
+        int position = tablePositions[slot];
+        deleteSlot(slot);
+
+        size--;
+        if (position != size) {
+            int moved = cells[size];
+            cells[position] = moved;
+            tablePositions[find(moved)] = position;
+        }
+        return true;
+    }
+
+    public boolean contains(int cell) {
+        return find(cell) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i position in the list, 0 &lt;= i &lt; size()
+     * @return the cell at that position
+     */
+    public int get(int i) {
+        return cells[i];
+    }
+
+    /**
+     * Copies the cells into the target array, growing it if it is too small
+     *
+     * @param target
+     * @return the array holding the copy
+     */
+    public int[] copyTo(int[] target) {
+        if (target == null || target.length < size) {
+            target = new int[Math.max(16, size)];
+        }
+        System.arraycopy(cells, 0, target, 0, size);
+        return target;
+    }
+
+    public void clear() {
+        size = 0;
+        Arrays.fill(tableCells, EMPTY);
+    }
+
+    private void allocateTable(int capacity) {
+        tableCells = new int[capacity];
+        tablePositions = new int[capacity];
+        Arrays.fill(tableCells, EMPTY);
+        mask = capacity - 1;
+    }
+
+    static int hash(int cell) {
+        int h = cell * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int find(int cell) {
+        int slot = hash(cell) & mask;
+        while (tableCells[slot] != EMPTY) {
+            if (tableCells[slot] == cell) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(int cell, int position) {
+        int slot = hash(cell) & mask;
+        while (tableCells[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        tableCells[slot] = cell;
+        tablePositions[slot] = position;
+    }
+
+    /**
+     * Empties a slot and moves later entries of the same probe run back, so lookups don't stop early
+     */
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (tableCells[next] != EMPTY) {
+            int home = hash(tableCells[next]) & mask;
+            // move the entry if its home slot is not between the hole and its current slot
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                tableCells[hole] = tableCells[next];
+                tablePositions[hole] = tablePositions[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        tableCells[hole] = EMPTY;
+    }
+}
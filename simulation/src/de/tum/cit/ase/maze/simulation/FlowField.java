@@ -0,0 +1,159 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.util.Arrays;
+
+/**
+ * The FlowField class keeps the walking distance from the tiles around a target (the player) to the target.
+ * All enemies share one breadth-first search: an enemy chases the target by stepping to a neighbour
+ * that is one step closer. Only tiles within a radius of the target are searched, so an update costs
+ * the same on every map size, and the search only runs again when the target moves to another tile
+ * or the layout of the map changes (see TileMap.getLayoutVersion).
+ */
+public class FlowField {
+    public static final int DEFAULT_RADIUS = 48;
+    private static final int UNREACHED = Integer.MAX_VALUE;
+    // directions: up, down, left, right
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {1, -1, 0, 0};
+
+    private final TileMap tiles;
+    private final int radius;
+    private final int side;
+    // distance of every tile of the square around the target, index = (y - originY) * side + (x - originX)
+    private final int[] distances;
+    private final int[] queue;
+    private int originX;
+    private int originY;
+    private int targetX;
+    private int targetY;
+    private long layoutVersion;
+    private boolean valid = false;
+    private int searches = 0;
+
+    /**
+     * @param tiles  map the enemies walk on
+     * @param radius tiles farther away from the target (in x or y) are not part of the field
+     */
+    public FlowField(TileMap tiles, int radius) {
+        this.tiles = tiles;
+        this.radius = radius;
+        this.side = 2 * radius + 1;
+        this.distances = new int[side * side];
+        this.queue = new int[side * side];
+    }
+
+    /**
+     * Moves the target, searching again if it changed its tile or the map changed since the last search
+     *
+     * @param targetX tile coordinates of the target
+     * @param targetY
+     * @return whether the field was searched again
+     */
+    public boolean update(int targetX, int targetY) {
+        if (valid && targetX == this.targetX && targetY == this.targetY && layoutVersion == tiles.getLayoutVersion()) {
+            return false;
+        }
+        this.targetX = targetX;
+        this.targetY = targetY;
+        this.layoutVersion = tiles.getLayoutVersion();
+        this.originX = targetX - radius;
+        this.originY = targetY - radius;
+        valid = true;
+        searches++;
+        search();
+        return true;
+    }
+
+    private void search() {
+        Arrays.fill(distances, UNREACHED);
+        if (!tiles.isWithinBounds(targetX, targetY)) {
+            return;
+        }
+        int head = 0;
+        int tail = 0;
+        distances[index(targetX, targetY)] = 0;
+        queue[tail++] = index(targetX, targetY);
+        while (head < tail) {
+            int current = queue[head++];
+            int x = originX + current % side;
+            int y = originY + current / side;
+            int distance = distances[current] + 1;
+            for (int direction = 0; direction < 4; direction++) {
+                int nextX = x + DX[direction];
+                int nextY = y + DY[direction];
+                if (!inWindow(nextX, nextY) || !tiles.isWithinBounds(nextX, nextY)) {
+                    continue;
+                }
+                int next = index(nextX, nextY);
+                if (distances[next] == UNREACHED && isWalkable(tiles.getTile(nextX, nextY))) {
+                    distances[next] = distance;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return number of steps from the tile to the target, or -1 if the tile is not part of the field
+     */
+    public int getDistance(int x, int y) {
+        if (!valid || !inWindow(x, y)) {
+            return -1;
+        }
+        int distance = distances[index(x, y)];
+        return distance == UNREACHED ? -1 : distance;
+    }
+
+    /**
+     * Chooses the neighbour an enemy on the tile should step to
+     *
+     * @param x
+     * @param y
+     * @param firstDirection direction (0 to 3) that is tried first, so enemies don't all prefer the same way
+     * @return cell index of a free floor tile one step closer to the target, or -1 if there is none
+     */
+    public int nextStep(int x, int y, int firstDirection) {
+        int distance = getDistance(x, y);
+        if (distance <= 0) {
+            return -1;
+        }
+        for (int i = 0; i < 4; i++) {
+            int direction = (firstDirection + i) & 3;
+            int nextX = x + DX[direction];
+            int nextY = y + DY[direction];
+            if (getDistance(nextX, nextY) == distance - 1 && tiles.getTile(nextX, nextY) == TileMap.FLOOR) {
+                return tiles.cellIndex(nextX, nextY);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param tileType
+     * @return whether enemies walk through the tile: floor, or another enemy that will move on
+     */
+    public static boolean isWalkable(int tileType) {
+        return tileType == TileMap.FLOOR || tileType == TileMap.ENEMY;
+    }
+
+    private boolean inWindow(int x, int y) {
+        return x >= originX && x < originX + side && y >= originY && y < originY + side;
+    }
+
+    private int index(int x, int y) {
+        return (y - originY) * side + (x - originX);
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * @return number of searches so far, for benchmarks
+     */
+    public int getSearches() {
+        return searches;
+    }
+}
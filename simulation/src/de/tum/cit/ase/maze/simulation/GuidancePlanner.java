@@ -0,0 +1,406 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.util.Arrays;
+
+/**
+ * The GuidancePlanner class keeps the shortest path from the player to the nearest tile of a goal type
+ * (a key, later the exit) up to date with D* Lite. The search runs backwards from all goal tiles,
+ * so when the player walks on or a tile changes, only the distances that changed are searched again
+ * instead of the whole map. Every update gets a time budget; a search that doesn't fit continues
+ * in the next update and the last complete path is kept until then.
+ * The distances of all tiles are kept, three ints per tile, so it only plans on maps in a dense store
+ * of at most MAX_TILES tiles; larger maps, and chunked and sparse maps, which may be far larger than the memory,
+ * are left out, see isSupported.
+ */
+public class GuidancePlanner implements TileListener {
+    // 12 bytes per tile, about 50 MB at this size
+    public static final int MAX_TILES = 1 << 22;
+    private static final int INFINITE = Integer.MAX_VALUE / 2;
+    // the clock is only read every this many expansions
+    private static final int CLOCK_INTERVAL = 32;
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {1, -1, 0, 0};
+
+    private final TileMap tiles;
+    private int goalType = -1;
+    private boolean initialized = false;
+
+    // distance to the nearest goal (g) and the one-step lookahead (rhs), indexed by cell
+    private int[] distances = new int[0];
+    private int[] lookahead = new int[0];
+    // tiles whose two values differ, ordered by their key; heapIndex is -1 for tiles not in the heap
+    private int[] heapIndex = new int[0];
+    private long[] heapKeys = new long[64];
+    private int[] heapCells = new int[64];
+    private int heapSize = 0;
+    // grows by the distance the start moved, so the keys already in the heap stay valid
+    private int keyModifier = 0;
+    private int start = -1;
+
+    private int[] path = new int[64];
+    private int pathLength = 0;
+    private boolean pathChanged = false;
+    private long expansions = 0;
+
+    /**
+     * Creates a planner without a goal and registers it as a listener of the map
+     *
+     * @param tiles
+     */
+    public GuidancePlanner(TileMap tiles) {
+        this.tiles = tiles;
+        tiles.addListener(this);
+    }
+
+    /**
+     * Stops listening to the map, the planner can't be used afterwards
+     */
+    public void detach() {
+        tiles.removeListener(this);
+    }
+
+    /**
+     * Chooses the tiles the path leads to; changing it plans again from scratch
+     *
+     * @param tileType for example TileMap.KEY or TileMap.EXIT
+     */
+    public void setGoalType(int tileType) {
+        if (tileType != goalType) {
+            goalType = tileType;
+            initialized = false;
+        }
+    }
+
+    /**
+     * @return whether the loaded map is kept in a dense store and has at most MAX_TILES tiles,
+     * otherwise update doesn't plan and the path stays empty
+     */
+    public boolean isSupported() {
+        return isSupported(tiles);
+    }
+
+    /**
+     * @param tiles
+     * @return whether a planner would plan on the loaded map, see the other isSupported
+     */
+    public static boolean isSupported(TileMap tiles) {
+        return tiles.isLoaded() && tiles.getStore().isDense()
+                && (long) tiles.getWidth() * tiles.getHeight() <= MAX_TILES;
+    }
+
+    /**
+     * Moves the start of the path and repairs the path for it and all changes of the map since the last update
+     *
+     * @param startX      tile of the player
+     * @param startY
+     * @param budgetNanos time the search may take, it continues in the next update if it doesn't finish
+     * @return whether the path is complete, otherwise getPath still describes the last complete path;
+     * always false if the map is not supported
+     */
+    public boolean update(int startX, int startY, long budgetNanos) {
+        if (!isSupported() || goalType < 0 || !tiles.isWithinBounds(startX, startY)) {
+            return false;
+        }
+        long deadline = System.nanoTime() + budgetNanos;
+        int cell = tiles.cellIndex(startX, startY);
+        if (!initialized) {
+            initialize(cell);
+        } else if (cell != start) {
+            keyModifier += heuristic(start, cell);
+            start = cell;
+            pathChanged = true;
+        }
+        if (!computeShortestPath(deadline)) {
+            return false;
+        }
+        if (pathChanged) {
+            extractPath();
+            pathChanged = false;
+        }
+        return true;
+    }
+
+    private void initialize(int startCell) {
+        int size = tiles.getWidth() * tiles.getHeight();
+        if (distances.length != size) {
+            distances = new int[size];
+            lookahead = new int[size];
+            heapIndex = new int[size];
+        }
+        Arrays.fill(distances, INFINITE);
+        Arrays.fill(lookahead, INFINITE);
+        Arrays.fill(heapIndex, -1);
+        heapSize = 0;
+        keyModifier = 0;
+        start = startCell;
+        pathLength = 0;
+        pathChanged = true;
+        initialized = true;
+        EntityList goals = tiles.getEntities(goalType);
+        if (goals == null) {
+            return;
+        }
+        for (int i = 0; i < goals.size(); i++) {
+            int goal = goals.get(i);
+            lookahead[goal] = 0;
+            insert(goal, key(goal));
+        }
+    }
+
+    /**
+     * Expands the inconsistent tiles until the start is consistent and no key in the heap is smaller
+     *
+     * @return false if the deadline passed first
+     */
+    private boolean computeShortestPath(long deadline) {
+        int count = 0;
+        while (heapSize > 0 && (heapKeys[0] < key(start) || lookahead[start] != distances[start])) {
+            if (++count % CLOCK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                return false;
+            }
+            int cell = heapCells[0];
+            long oldKey = heapKeys[0];
+            long newKey = key(cell);
+            pathChanged = true;
+            expansions++;
+            if (oldKey < newKey) {
+                remove(cell);
+                insert(cell, newKey);
+            } else if (distances[cell] > lookahead[cell]) {
+                distances[cell] = lookahead[cell];
+                remove(cell);
+                updateNeighbours(cell);
+            } else {
+                distances[cell] = INFINITE;
+                updateVertex(cell);
+                updateNeighbours(cell);
+            }
+        }
+        return true;
+    }
+
+    private void updateNeighbours(int cell) {
+        int x = tiles.cellX(cell);
+        int y = tiles.cellY(cell);
+        for (int direction = 0; direction < 4; direction++) {
+            int nextX = x + DX[direction];
+            int nextY = y + DY[direction];
+            if (tiles.isWithinBounds(nextX, nextY)) {
+                updateVertex(tiles.cellIndex(nextX, nextY));
+            }
+        }
+    }
+
+    /**
+     * Recomputes the lookahead of a tile and puts it into the heap if it became inconsistent
+     */
+    private void updateVertex(int cell) {
+        if (!isGoal(cell)) {
+            lookahead[cell] = bestNeighbour(cell);
+        }
+        if (heapIndex[cell] >= 0) {
+            remove(cell);
+        }
+        if (distances[cell] != lookahead[cell]) {
+            insert(cell, key(cell));
+        }
+    }
+
+    /**
+     * @return one more than the smallest distance of a neighbour, INFINITE if the tile can't be walked on
+     */
+    private int bestNeighbour(int cell) {
+        int x = tiles.cellX(cell);
+        int y = tiles.cellY(cell);
+        if (!isPassable(tiles.getTile(x, y))) {
+            return INFINITE;
+        }
+        int best = INFINITE;
+        for (int direction = 0; direction < 4; direction++) {
+            int nextX = x + DX[direction];
+            int nextY = y + DY[direction];
+            if (tiles.isWithinBounds(nextX, nextY) && isPassable(tiles.getTile(nextX, nextY))) {
+                int distance = distances[tiles.cellIndex(nextX, nextY)];
+                if (distance < INFINITE) {
+                    best = Math.min(best, distance + 1);
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Follows the smallest distances from the start to a goal
+     */
+    private void extractPath() {
+        pathLength = 0;
+        if (distances[start] >= INFINITE) {
+            return;
+        }
+        int cell = start;
+        path = ensureCapacity(path, distances[start] + 1);
+        path[pathLength++] = cell;
+        while (!isGoal(cell) && pathLength <= distances[start]) {
+            int x = tiles.cellX(cell);
+            int y = tiles.cellY(cell);
+            int next = -1;
+            int best = INFINITE;
+            for (int direction = 0; direction < 4; direction++) {
+                int nextX = x + DX[direction];
+                int nextY = y + DY[direction];
+                if (tiles.isWithinBounds(nextX, nextY) && isPassable(tiles.getTile(nextX, nextY))) {
+                    int neighbour = tiles.cellIndex(nextX, nextY);
+                    if (distances[neighbour] < best) {
+                        best = distances[neighbour];
+                        next = neighbour;
+                    }
+                }
+            }
+            if (next < 0) {
+                pathLength = 0;
+                return;
+            }
+            cell = next;
+            path[pathLength++] = cell;
+        }
+    }
+
+    @Override
+    public void mapLoaded(int width, int height) {
+        initialized = false;
+        pathLength = 0;
+        if (!isSupported()) {
+            // don't keep the distances of a previous map around
+            distances = new int[0];
+            lookahead = new int[0];
+            heapIndex = new int[0];
+        }
+    }
+
+    @Override
+    public void tileChanged(int x, int y, int oldType, int newType) {
+        if (!initialized || isPassable(oldType) == isPassable(newType) && (oldType == goalType) == (newType == goalType)) {
+            return;
+        }
+        int cell = tiles.cellIndex(x, y);
+        if (newType == goalType) {
+            lookahead[cell] = 0;
+        }
+        updateVertex(cell);
+        updateNeighbours(cell);
+        pathChanged = true;
+    }
+
+    /**
+     * @return whether the path may lead over the tile: walkable tiles and the goals, even a solid exit
+     */
+    private boolean isPassable(int tileType) {
+        return !TileMap.isSolid(tileType) || tileType == goalType;
+    }
+
+    private boolean isGoal(int cell) {
+        return tiles.getTile(tiles.cellX(cell), tiles.cellY(cell)) == goalType;
+    }
+
+    private int heuristic(int from, int to) {
+        return Math.abs(tiles.cellX(from) - tiles.cellX(to)) + Math.abs(tiles.cellY(from) - tiles.cellY(to));
+    }
+
+    /**
+     * @return the estimated length of a path through the tile in the upper half, the distance in the lower half
+     */
+    private long key(int cell) {
+        int distance = Math.min(distances[cell], lookahead[cell]);
+        return (long) (Math.min(distance + heuristic(start, cell) + keyModifier, INFINITE)) << 32 | distance;
+    }
+
+    private void insert(int cell, long key) {
+        if (heapSize == heapKeys.length) {
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            heapCells = Arrays.copyOf(heapCells, heapSize * 2);
+        }
+        siftUp(heapSize++, cell, key);
+    }
+
+    private void remove(int cell) {
+        int i = heapIndex[cell];
+        heapIndex[cell] = -1;
+        heapSize--;
+        if (i == heapSize) {
+            return;
+        }
+        int lastCell = heapCells[heapSize];
+        long lastKey = heapKeys[heapSize];
+        if (i > 0 && lastKey < heapKeys[(i - 1) >>> 1]) {
+            siftUp(i, lastCell, lastKey);
+        } else {
+            siftDown(i, lastCell, lastKey);
+        }
+    }
+
+    private void siftUp(int i, int cell, long key) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapKeys[parent] <= key) {
+                break;
+            }
+            place(i, heapCells[parent], heapKeys[parent]);
+            i = parent;
+        }
+        place(i, cell, key);
+    }
+
+    private void siftDown(int i, int cell, long key) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (key <= heapKeys[child]) {
+                break;
+            }
+            place(i, heapCells[child], heapKeys[child]);
+            i = child;
+        }
+        place(i, cell, key);
+    }
+
+    private void place(int i, int cell, long key) {
+        heapCells[i] = cell;
+        heapKeys[i] = key;
+        heapIndex[cell] = i;
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        return array.length >= size ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
+    /**
+     * @return number of tiles of the last complete path, 0 if no goal can be reached
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * @param i from 0 (the start) to getPathLength() - 1 (a goal)
+     * @return cell index of a tile of the path
+     */
+    public int getPathCell(int i) {
+        return path[i];
+    }
+
+    public int getGoalType() {
+        return goalType;
+    }
+
+    /**
+     * @return number of tiles expanded so far, for benchmarks
+     */
+    public long getExpansions() {
+        return expansions;
+    }
+}
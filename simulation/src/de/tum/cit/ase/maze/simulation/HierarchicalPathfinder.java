@@ -0,0 +1,921 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.util.Arrays;
+
+/**
+ * The HierarchicalPathfinder class finds paths for the player across large maps with HPA*.
+ * The map is split into square clusters; the openings between neighbouring clusters become the nodes
+ * of a small abstract graph, and the distances between the nodes of one cluster are searched in advance.
+ * A query runs A* on the abstract graph and only walks tile by tile inside the clusters along the way.
+ * Building the graph starts when the map is loaded and runs in slices with a time budget, see build;
+ * a query before it is complete finishes it first. When a tile changes between solid and walkable, its cluster
+ * (and the neighbours, if the tile lies on a border) is searched again on the next query, the rest of the graph is kept.
+ * Paths only cross clusters at the nodes of the openings, so they are close to, but not always exactly,
+ * the shortest ones.
+ */
+public class HierarchicalPathfinder implements TileListener {
+    public static final int DEFAULT_CLUSTER_SIZE = 32;
+    // the heuristic is the Manhattan distance times this many percent, 100 never overestimates
+    public static final int DEFAULT_HEURISTIC_WEIGHT = 100;
+    // openings at least this wide get a node at both ends instead of one in the middle
+    private static final int WIDE_OPENING = 6;
+    // sides of a cluster, the opposite side is side ^ 1
+    private static final int LEFT = 0;
+    private static final int RIGHT = 1;
+    private static final int TOP = 2;
+    private static final int BOTTOM = 3;
+    private static final int[] DX = {-1, 1, 0, 0};
+    private static final int[] DY = {0, 0, -1, 1};
+    // marks a changed cluster next to the bits of the borders that have to be found again
+    private static final int CHANGED = 1 << 4;
+    // heap entries are priority(...), the lowest 24 bits are the node id
+    private static final long NODE_MASK = 0xFFFFFF;
+
+    private final TileMap tiles;
+    private final int clusterSize;
+    private final int heuristicWeight;
+    private int width;
+    private int height;
+    private int clustersX;
+    private int clustersY;
+    private Cluster[] clusters;
+    private boolean built = false;
+    // clusters built so far: first the openings of all clusters, then their distances, then the ids of their nodes
+    private int buildProgress = 0;
+    private int solidChanges = 0;
+
+    // clusters with changed tiles, searched again on the next query, and their borders (1 << side) to find again
+    private int[] dirtySides;
+    private int[] dirtyClusters;
+    private int dirtyCount = 0;
+    private int[] changedClusters;
+    private int[] costStamps;
+    private int costStamp = 0;
+
+    // abstract node ids: nodes of cluster c are clusterBase[c] to clusterBase[c + 1] - 1
+    private int[] clusterBase;
+    private int[] nodeCluster;
+    private int[] nodeX;
+    private int[] nodeY;
+
+    // state of the abstract A*, indexed by node id; after the nodes come the start, the targets and the goal
+    private int[] costs = new int[0];
+    private int[] parents = new int[0];
+    private int[] stamps = new int[0];
+    private int searchStamp = 0;
+    private long[] heap = new long[64];
+    private int heapSize;
+    private int goalX;
+    private int goalY;
+    // number of tiles of the path found by the last search
+    private int pathLength;
+    private int[] startCosts = new int[16];
+    // the tiles a path can end on: the goal, or the walkable neighbours of a solid goal
+    private final int[] targets = new int[4];
+    private final int[][] targetCosts = new int[4][16];
+    private int targetCount;
+
+    // state of the breadth-first search inside one cluster, indexed by tile inside the cluster
+    private final int[] localDistances;
+    private final int[] localStamps;
+    // walkable tiles of the cluster of the last local search, bit x of row y
+    private final long[] localRows;
+    private final long[] localReached;
+    private final long[] localFront;
+    private int loadedCluster = -1;
+    private int localStamp = 0;
+    private int localX;
+    private int localY;
+    private int localWidth;
+    private int localHeight;
+
+    private int rebuiltClusters = 0;
+
+    /**
+     * Creates a pathfinder with the Manhattan distance as heuristic, see the other constructor
+     *
+     * @param tiles
+     * @param clusterSize side of a cluster in tiles, at most 64 so a row of a cluster fits into a long
+     */
+    public HierarchicalPathfinder(TileMap tiles, int clusterSize) {
+        this(tiles, clusterSize, DEFAULT_HEURISTIC_WEIGHT);
+    }
+
+    /**
+     * Creates a pathfinder for a map and registers it as a listener of the map.
+     * If the map is loaded already, building the abstract graph starts, see build.
+     *
+     * @param tiles
+     * @param clusterSize     side of a cluster in tiles, at most 64 so a row of a cluster fits into a long
+     * @param heuristicWeight percent the Manhattan distance is weighted with on the abstract graph; above 100
+     *                        fewer nodes are expanded, but the paths found may be longer than with 100
+     */
+    public HierarchicalPathfinder(TileMap tiles, int clusterSize, int heuristicWeight) {
+        if (clusterSize < 1 || clusterSize > 64) {
+            throw new IllegalArgumentException("cluster size " + clusterSize + " not between 1 and 64");
+        }
+        if (heuristicWeight < 0) {
+            throw new IllegalArgumentException("negative heuristic weight " + heuristicWeight);
+        }
+        this.tiles = tiles;
+        this.clusterSize = clusterSize;
+        this.heuristicWeight = heuristicWeight;
+        this.localDistances = new int[clusterSize * clusterSize];
+        this.localStamps = new int[clusterSize * clusterSize];
+        this.localRows = new long[clusterSize];
+        this.localReached = new long[clusterSize];
+        this.localFront = new long[clusterSize];
+        tiles.addListener(this);
+        if (tiles.isLoaded()) {
+            startBuild();
+        }
+    }
+
+    /**
+     * Stops listening to the map, the pathfinder can't be used afterwards
+     */
+    public void detach() {
+        tiles.removeListener(this);
+    }
+
+    /**
+     * Continues building the abstract graph of the loaded map, at least one cluster per call
+     *
+     * @param budgetNanos time building may take, it continues in the next call if it doesn't finish;
+     *                    Long.MAX_VALUE builds the whole graph
+     * @return whether the graph is complete
+     */
+    public boolean build(long budgetNanos) {
+        if (!tiles.isLoaded()) {
+            return false;
+        }
+        return continueBuild(budgetNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + budgetNanos);
+    }
+
+    /**
+     * @return whether the abstract graph of the loaded map is complete, so queries only search changed clusters
+     */
+    public boolean isBuilt() {
+        return tiles.isLoaded() && built;
+    }
+
+    @Override
+    public void mapLoaded(int width, int height) {
+        startBuild();
+    }
+
+    @Override
+    public void tileChanged(int x, int y, int oldType, int newType) {
+        // clusters changed while the graph is built are searched again once it is complete
+        if (clusters != null && TileMap.isSolid(oldType) != TileMap.isSolid(newType)) {
+            solidChanges++;
+            loadedCluster = -1;
+            int cluster = clusterOf(x, y);
+            if (dirtySides[cluster] == 0) {
+                dirtyClusters[dirtyCount++] = cluster;
+            }
+            // the own cluster is always searched again, the borders only if the tile lies on them
+            dirtySides[cluster] |= CHANGED;
+            dirtySides[cluster] |= x % clusterSize == 0 ? 1 << LEFT : 0;
+            dirtySides[cluster] |= x % clusterSize == clusterSize - 1 ? 1 << RIGHT : 0;
+            dirtySides[cluster] |= y % clusterSize == 0 ? 1 << TOP : 0;
+            dirtySides[cluster] |= y % clusterSize == clusterSize - 1 ? 1 << BOTTOM : 0;
+        }
+    }
+
+    /**
+     * Finds a path for the player. The goal may be solid, like a closed exit; the path then ends on it.
+     *
+     * @param start cell index of the first tile, see TileMap.cellIndex
+     * @param goal  cell index of the last tile
+     * @return cell indices of all tiles of the path including start and goal, or null if there is none
+     */
+    public int[] findPath(int start, int goal) {
+        int[] waypoints = findWaypoints(start, goal);
+        return waypoints == null ? null : refine(waypoints);
+    }
+
+    /**
+     * Finds the way on the abstract graph only. Two waypoints in a row are neighbours or lie in the same
+     * cluster, so findPath from one to the next only searches inside a cluster. On large maps, asking for
+     * the tiles of the next part when the player reaches a waypoint is much cheaper than one findPath.
+     *
+     * @param start cell index of the first tile
+     * @param goal  cell index of the last tile
+     * @return cell indices of the start, the openings between clusters along the way and the goal,
+     * or null if there is no path
+     */
+    public int[] findWaypoints(int start, int goal) {
+        if (!tiles.isLoaded()) {
+            return null;
+        }
+        continueBuild(Long.MAX_VALUE);
+        update();
+        int startX = tiles.cellX(start);
+        int startY = tiles.cellY(start);
+        goalX = tiles.cellX(goal);
+        goalY = tiles.cellY(goal);
+        if (!tiles.isWithinBounds(startX, startY) || !tiles.isWithinBounds(goalX, goalY) || !isWalkable(startX, startY)) {
+            return null;
+        }
+        if (start == goal) {
+            pathLength = 1;
+            return new int[]{start};
+        }
+        findTargets();
+        // ids after the nodes: the start, one per target, the goal
+        int totalNodes = clusterBase[clusters.length];
+        int startId = totalNodes;
+        int goalId = totalNodes + 1 + targets.length;
+        prepareSearch(goalId + 1);
+        costs[startId] = 0;
+        stamps[startId] = searchStamp;
+
+        // connect the start to the nodes of its cluster and to the targets inside it
+        int startCluster = clusterOf(startX, startY);
+        Cluster first = clusters[startCluster];
+        startCosts = ensureCapacity(startCosts, first.count);
+        localSearch(startCluster, start, -1);
+        for (int i = 0; i < first.count; i++) {
+            startCosts[i] = localDistance(first.cells[i]);
+        }
+        // whether the goal can be reached from the start or any node at all
+        boolean connected = false;
+        for (int t = 0; t < targetCount; t++) {
+            int distance = localDistance(targets[t]);
+            if (distance >= 0) {
+                relax(startId + 1 + t, distance, startId);
+                connected = true;
+            }
+        }
+        for (int i = 0; i < first.count; i++) {
+            if (startCosts[i] >= 0) {
+                relax(clusterBase[startCluster] + i, startCosts[i], startId);
+            }
+        }
+        // connect the targets to the nodes of their clusters
+        for (int t = 0; t < targetCount; t++) {
+            int cluster = clusterOf(tiles.cellX(targets[t]), tiles.cellY(targets[t]));
+            Cluster c = clusters[cluster];
+            targetCosts[t] = ensureCapacity(targetCosts[t], c.count);
+            localSearch(cluster, targets[t], -1);
+            for (int i = 0; i < c.count; i++) {
+                targetCosts[t][i] = localDistance(c.cells[i]);
+                connected |= targetCosts[t][i] >= 0;
+            }
+        }
+        if (!connected) {
+            return null; // the goal is walled in inside its cluster, don't search the whole graph
+        }
+
+        while (heapSize > 0) {
+            long entry = pop();
+            int node = (int) (entry & NODE_MASK);
+            if (node == goalId) {
+                pathLength = costs[goalId] + 1;
+                return waypoints(startId, goalId, start, goal);
+            }
+            if (entry != priority(node, costs[node])) {
+                continue; // a shorter way to the node was found after this entry was added
+            }
+            if (node > startId) {
+                // a target, the goal is the target itself or one step away
+                relax(goalId, costs[node] + (targets[node - startId - 1] == goal ? 0 : 1), node);
+            } else {
+                expand(node, startId);
+            }
+        }
+        return null;
+    }
+
+    private void findTargets() {
+        targetCount = 0;
+        if (isWalkable(goalX, goalY)) {
+            targets[targetCount++] = tiles.cellIndex(goalX, goalY);
+            return;
+        }
+        for (int side = 0; side < 4; side++) {
+            int x = goalX + DX[side];
+            int y = goalY + DY[side];
+            if (tiles.isWithinBounds(x, y) && isWalkable(x, y)) {
+                targets[targetCount++] = tiles.cellIndex(x, y);
+            }
+        }
+    }
+
+    private void expand(int node, int startId) {
+        int cluster = nodeCluster[node];
+        Cluster c = clusters[cluster];
+        int index = node - clusterBase[cluster];
+        int cost = costs[node];
+        // to the other nodes of the cluster
+        for (int other = 0; other < c.count; other++) {
+            int distance = c.costs[index * c.count + other];
+            if (other != index && distance >= 0) {
+                relax(clusterBase[cluster] + other, cost + distance, node);
+            }
+        }
+        // through the opening into the neighbouring cluster
+        int cell = c.cells[index];
+        int x = tiles.cellX(cell);
+        int y = tiles.cellY(cell);
+        for (int sides = c.sides[index]; sides != 0; sides &= sides - 1) {
+            int side = Integer.numberOfTrailingZeros(sides);
+            int nextX = x + DX[side];
+            int nextY = y + DY[side];
+            int nextCluster = clusterOf(nextX, nextY);
+            int nextIndex = clusters[nextCluster].indexOf(tiles.cellIndex(nextX, nextY));
+            relax(clusterBase[nextCluster] + nextIndex, cost + 1, node);
+        }
+        // to the targets inside the cluster
+        for (int t = 0; t < targetCount; t++) {
+            if (clusterOf(tiles.cellX(targets[t]), tiles.cellY(targets[t])) == cluster && targetCosts[t][index] >= 0) {
+                relax(startId + 1 + t, cost + targetCosts[t][index], node);
+            }
+        }
+    }
+
+    private void relax(int node, int cost, int parent) {
+        if (stamps[node] != searchStamp || cost < costs[node]) {
+            stamps[node] = searchStamp;
+            costs[node] = cost;
+            parents[node] = parent;
+            push(priority(node, cost));
+        }
+    }
+
+    /**
+     * Orders the heap by the estimated length of the path, then by the distance still left,
+     * so of equally good nodes the one closest to the goal is expanded first
+     */
+    private long priority(int node, int cost) {
+        int estimate = heuristic(node);
+        return (long) (cost + estimate) << 40 | (long) Math.min(estimate, 0xFFFF) << 24 | node;
+    }
+
+    /**
+     * Estimates the distance from the node to the goal: the Manhattan distance, weighted by heuristicWeight
+     *
+     * @return the estimate, 0 for the start, the targets and the goal
+     */
+    private int heuristic(int node) {
+        if (node >= nodeX.length) {
+            return 0;
+        }
+        return (int) ((long) (Math.abs(nodeX[node] - goalX) + Math.abs(nodeY[node] - goalY)) * heuristicWeight / 100);
+    }
+
+    /**
+     * Collects the tiles of the abstract path by following the parents back from the goal
+     */
+    private int[] waypoints(int startId, int goalId, int start, int goal) {
+        int count = 1;
+        for (int node = goalId; node != startId; node = parents[node]) {
+            count++;
+        }
+        int[] waypoints = new int[count];
+        int i = count;
+        for (int node = goalId; node != startId; node = parents[node]) {
+            if (node == goalId) {
+                waypoints[--i] = goal;
+            } else if (node > startId) {
+                int target = targets[node - startId - 1];
+                if (target != goal) {
+                    waypoints[--i] = target;
+                }
+            } else {
+                waypoints[--i] = nodeCell(node);
+            }
+        }
+        waypoints[--i] = start;
+        return i == 0 ? waypoints : Arrays.copyOfRange(waypoints, i, count);
+    }
+
+    /**
+     * Turns the waypoints of the last search into tiles, searching the way inside every cluster it crosses
+     */
+    private int[] refine(int[] waypoints) {
+        int goal = waypoints[waypoints.length - 1];
+        int[] path = new int[pathLength];
+        int length = 0;
+        path[length++] = waypoints[0];
+        for (int i = 1; i < waypoints.length; i++) {
+            int from = waypoints[i - 1];
+            int to = waypoints[i];
+            int cluster = clusterOf(tiles.cellX(from), tiles.cellY(from));
+            if (cluster != clusterOf(tiles.cellX(to), tiles.cellY(to)) || to == goal && !isWalkable(goalX, goalY)) {
+                path[length++] = to; // a step through an opening or onto a solid goal
+                continue;
+            }
+            // search from the waypoint ahead, then follow the distances back from this one
+            localSearch(cluster, to, from);
+            for (int cell = from; cell != to; ) {
+                cell = localParent(cell);
+                path[length++] = cell;
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Searches the clusters with changed tiles again
+     */
+    private void update() {
+        if (dirtyCount == 0) {
+            return;
+        }
+        costStamp++;
+        int changedCount = 0;
+        for (int i = 0; i < dirtyCount; i++) {
+            int cluster = dirtyClusters[i];
+            for (int side = 0; side < 4; side++) {
+                int neighbour = neighbourOf(cluster, side);
+                if (neighbour < 0 || (dirtySides[cluster] & 1 << side) == 0) {
+                    continue;
+                }
+                clusters[cluster].removeSide(side);
+                clusters[neighbour].removeSide(side ^ 1);
+                if (side == RIGHT || side == BOTTOM) {
+                    findOpenings(cluster, side);
+                } else {
+                    findOpenings(neighbour, side ^ 1);
+                }
+                changedCount = markChanged(neighbour, changedCount);
+            }
+            changedCount = markChanged(cluster, changedCount);
+            dirtySides[cluster] = 0;
+        }
+        dirtyCount = 0;
+        boolean sameCounts = true;
+        for (int i = 0; i < changedCount; i++) {
+            int cluster = changedClusters[i];
+            computeCosts(cluster);
+            sameCounts &= clusters[cluster].count == clusterBase[cluster + 1] - clusterBase[cluster];
+        }
+        if (!sameCounts) {
+            assignIds();
+            return;
+        }
+        // the ids stay the same, only the tiles of the nodes moved
+        for (int i = 0; i < changedCount; i++) {
+            assignIds(changedClusters[i]);
+        }
+    }
+
+    private int markChanged(int cluster, int changedCount) {
+        if (costStamps[cluster] != costStamp) {
+            costStamps[cluster] = costStamp;
+            changedClusters[changedCount++] = cluster;
+        }
+        return changedCount;
+    }
+
+    /**
+     * Prepares an empty graph for the loaded map, the clusters are filled in by continueBuild
+     */
+    private void startBuild() {
+        loadedCluster = -1;
+        width = tiles.getWidth();
+        height = tiles.getHeight();
+        clustersX = (width + clusterSize - 1) / clusterSize;
+        clustersY = (height + clusterSize - 1) / clusterSize;
+        clusters = new Cluster[clustersX * clustersY];
+        for (int i = 0; i < clusters.length; i++) {
+            clusters[i] = new Cluster();
+        }
+        dirtySides = new int[clusters.length];
+        dirtyClusters = new int[clusters.length];
+        changedClusters = new int[clusters.length];
+        dirtyCount = 0;
+        costStamps = new int[clusters.length];
+        buildProgress = 0;
+        built = false;
+    }
+
+    /**
+     * Finds the openings of all clusters, then the distances inside them, then numbers their nodes,
+     * until the deadline passes
+     *
+     * @param deadline System.nanoTime() to stop at, at least one cluster is built before
+     * @return whether the graph is complete
+     */
+    private boolean continueBuild(long deadline) {
+        int count = clusters.length;
+        while (buildProgress < 3 * count) {
+            if (buildProgress < count) {
+                findOpenings(buildProgress, RIGHT);
+                findOpenings(buildProgress, BOTTOM);
+            } else if (buildProgress < 2 * count) {
+                computeCosts(buildProgress - count);
+            } else {
+                if (buildProgress == 2 * count) {
+                    countNodes();
+                }
+                assignIds(buildProgress - 2 * count);
+            }
+            buildProgress++;
+            if (buildProgress < 3 * count && System.nanoTime() > deadline) {
+                return false;
+            }
+        }
+        built = true;
+        return true;
+    }
+
+    /**
+     * Finds the openings on the right or bottom side of a cluster and adds a node on both sides of each
+     */
+    private void findOpenings(int cluster, int side) {
+        int neighbour = neighbourOf(cluster, side);
+        if (neighbour < 0) {
+            return;
+        }
+        int x = (cluster % clustersX) * clusterSize;
+        int y = (cluster / clustersX) * clusterSize;
+        int stepX;
+        int stepY;
+        int length;
+        if (side == RIGHT) {
+            x += clusterSize - 1;
+            stepX = 0;
+            stepY = 1;
+            length = Math.min(clusterSize, height - y);
+        } else {
+            y += clusterSize - 1;
+            stepX = 1;
+            stepY = 0;
+            length = Math.min(clusterSize, width - x);
+        }
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            int tileX = x + i * stepX;
+            int tileY = y + i * stepY;
+            boolean open = i < length && isWalkable(tileX, tileY) && isWalkable(tileX + DX[side], tileY + DY[side]);
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 >= WIDE_OPENING) {
+                    addOpening(cluster, neighbour, side, x + runStart * stepX, y + runStart * stepY);
+                    addOpening(cluster, neighbour, side, x + runEnd * stepX, y + runEnd * stepY);
+                } else {
+                    int middle = (runStart + runEnd) / 2;
+                    addOpening(cluster, neighbour, side, x + middle * stepX, y + middle * stepY);
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    private void addOpening(int cluster, int neighbour, int side, int x, int y) {
+        clusters[cluster].add(tiles.cellIndex(x, y), side);
+        clusters[neighbour].add(tiles.cellIndex(x + DX[side], y + DY[side]), side ^ 1);
+    }
+
+    /**
+     * Searches the distances between all nodes of a cluster, without leaving the cluster
+     */
+    private void computeCosts(int cluster) {
+        Cluster c = clusters[cluster];
+        int count = c.count;
+        if (c.costs.length < count * count) {
+            c.costs = new int[count * count];
+        }
+        for (int i = 0; i < count; i++) {
+            localSearch(cluster, c.cells[i], -1);
+            for (int j = 0; j < count; j++) {
+                c.costs[i * count + j] = localDistance(c.cells[j]);
+            }
+        }
+        rebuiltClusters++;
+    }
+
+    /**
+     * Numbers the nodes of all clusters consecutively
+     */
+    private void assignIds() {
+        countNodes();
+        for (int cluster = 0; cluster < clusters.length; cluster++) {
+            assignIds(cluster);
+        }
+    }
+
+    /**
+     * Finds the first id of every cluster, the nodes get them in assignIds
+     */
+    private void countNodes() {
+        if (clusterBase == null || clusterBase.length != clusters.length + 1) {
+            clusterBase = new int[clusters.length + 1];
+        }
+        for (int cluster = 0; cluster < clusters.length; cluster++) {
+            clusterBase[cluster + 1] = clusterBase[cluster] + clusters[cluster].count;
+        }
+        int totalNodes = clusterBase[clusters.length];
+        if (nodeCluster == null || nodeCluster.length != totalNodes) {
+            nodeCluster = new int[totalNodes];
+            nodeX = new int[totalNodes];
+            nodeY = new int[totalNodes];
+        }
+    }
+
+    /**
+     * Updates the nodes of one cluster, keeping their ids
+     */
+    private void assignIds(int cluster) {
+        Cluster c = clusters[cluster];
+        for (int i = 0; i < c.count; i++) {
+            int node = clusterBase[cluster] + i;
+            nodeCluster[node] = cluster;
+            nodeX[node] = tiles.cellX(c.cells[i]);
+            nodeY[node] = tiles.cellY(c.cells[i]);
+        }
+    }
+
+    private int nodeCell(int node) {
+        int cluster = nodeCluster[node];
+        return clusters[cluster].cells[node - clusterBase[cluster]];
+    }
+
+    /**
+     * Breadth-first search inside one cluster over walkable tiles. Every step grows the reached tiles
+     * of all rows at once by their neighbours, a row of the cluster is one long.
+     *
+     * @param cluster
+     * @param source
+     * @param stop    cell index the search ends at once it is reached, -1 to reach every tile
+     */
+    private void localSearch(int cluster, int source, int stop) {
+        loadCluster(cluster);
+        localStamp++;
+        Arrays.fill(localReached, 0, localHeight, 0L);
+        Arrays.fill(localFront, 0, localHeight, 0L);
+        int sourceIndex = localIndex(source);
+        int stopIndex = stop >= 0 ? localIndex(stop) : -1;
+        localReached[sourceIndex / localWidth] = localFront[sourceIndex / localWidth] = 1L << (sourceIndex % localWidth);
+        localStamps[sourceIndex] = localStamp;
+        localDistances[sourceIndex] = 0;
+        // rows the front can reach in the next step
+        int minY = sourceIndex / localWidth;
+        int maxY = minY;
+        for (int distance = 1; ; distance++) {
+            minY = Math.max(minY - 1, 0);
+            maxY = Math.min(maxY + 1, localHeight - 1);
+            int grownMinY = localHeight;
+            int grownMaxY = -1;
+            long above = 0;
+            for (int y = minY; y <= maxY; y++) {
+                long front = localFront[y];
+                long below = y < localHeight - 1 ? localFront[y + 1] : 0L;
+                long next = (front << 1 | front >>> 1 | above | below) & localRows[y] & ~localReached[y];
+                above = front;
+                localFront[y] = next;
+                if (next == 0) {
+                    continue;
+                }
+                localReached[y] |= next;
+                grownMinY = Math.min(grownMinY, y);
+                grownMaxY = y;
+                for (; next != 0; next &= next - 1) {
+                    int index = y * localWidth + Long.numberOfTrailingZeros(next);
+                    localStamps[index] = localStamp;
+                    localDistances[index] = distance;
+                }
+            }
+            if (grownMaxY < 0 || stopIndex >= 0 && localStamps[stopIndex] == localStamp) {
+                return;
+            }
+            minY = grownMinY;
+            maxY = grownMaxY;
+        }
+    }
+
+    /**
+     * Reads which tiles of the cluster are walkable, one long per row, unless the cluster was read last
+     */
+    private void loadCluster(int cluster) {
+        if (cluster == loadedCluster) {
+            return;
+        }
+        loadedCluster = cluster;
+        localX = (cluster % clustersX) * clusterSize;
+        localY = (cluster / clustersX) * clusterSize;
+        localWidth = Math.min(clusterSize, width - localX);
+        localHeight = Math.min(clusterSize, height - localY);
+        long inside = -1L >>> (64 - localWidth);
+        SolidBitmap solid = tiles.getSolid();
+        for (int y = 0; y < localHeight; y++) {
+            long walkable = 0;
+            if (solid != null) {
+                int word = localX >>> 6;
+                int shift = localX & 63;
+                long bits = solid.getWord(localY + y, word) >>> shift;
+                if (shift != 0 && word + 1 < solid.getWordsPerRow()) {
+                    bits |= solid.getWord(localY + y, word + 1) << (64 - shift);
+                }
+                walkable = ~bits;
+            } else {
+                for (int x = 0; x < localWidth; x++) {
+                    if (!TileMap.isSolid(tiles.getTile(localX + x, localY + y))) {
+                        walkable |= 1L << x;
+                    }
+                }
+            }
+            localRows[y] = walkable & inside;
+        }
+    }
+
+    /**
+     * @return distance from the source of the last local search, or -1 if the tile was not reached
+     */
+    private int localDistance(int cell) {
+        int index = localIndex(cell);
+        return index >= 0 && localStamps[index] == localStamp ? localDistances[index] : -1;
+    }
+
+    /**
+     * @return a neighbour of the tile one step closer to the source of the last local search
+     */
+    private int localParent(int cell) {
+        int index = localIndex(cell);
+        int x = index % localWidth;
+        int y = index / localWidth;
+        int distance = localDistances[index] - 1;
+        if (x > 0 && isLocalDistance(index - 1, distance)) {
+            return tiles.cellIndex(localX + x - 1, localY + y);
+        }
+        if (x < localWidth - 1 && isLocalDistance(index + 1, distance)) {
+            return tiles.cellIndex(localX + x + 1, localY + y);
+        }
+        if (y > 0 && isLocalDistance(index - localWidth, distance)) {
+            return tiles.cellIndex(localX + x, localY + y - 1);
+        }
+        return tiles.cellIndex(localX + x, localY + y + 1);
+    }
+
+    private boolean isLocalDistance(int index, int distance) {
+        return localStamps[index] == localStamp && localDistances[index] == distance;
+    }
+
+    private int localIndex(int cell) {
+        int x = tiles.cellX(cell) - localX;
+        int y = tiles.cellY(cell) - localY;
+        if (x < 0 || x >= localWidth || y < 0 || y >= localHeight) {
+            return -1;
+        }
+        return y * localWidth + x;
+    }
+
+    private boolean isWalkable(int x, int y) {
+        SolidBitmap solid = tiles.getSolid();
+        if (solid != null) {
+            return !solid.get(x, y);
+        }
+        return !TileMap.isSolid(tiles.getTile(x, y));
+    }
+
+    private int clusterOf(int x, int y) {
+        return (y / clusterSize) * clustersX + x / clusterSize;
+    }
+
+    /**
+     * @return the cluster on the given side, or -1 at the border of the map
+     */
+    private int neighbourOf(int cluster, int side) {
+        int x = cluster % clustersX + DX[side];
+        int y = cluster / clustersX + DY[side];
+        if (x < 0 || x >= clustersX || y < 0 || y >= clustersY) {
+            return -1;
+        }
+        return y * clustersX + x;
+    }
+
+    private void prepareSearch(int nodes) {
+        if (costs.length < nodes) {
+            int capacity = Math.max(nodes, costs.length * 2);
+            costs = new int[capacity];
+            parents = new int[capacity];
+            stamps = new int[capacity];
+            searchStamp = 0;
+        }
+        searchStamp++;
+        heapSize = 0;
+    }
+
+    private void push(long entry) {
+        if (heapSize == heap.length) {
+            heap = Arrays.copyOf(heap, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    private long pop() {
+        long top = heap[0];
+        long last = heap[--heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    private static int[] ensureCapacity(int[] array, int size) {
+        return array.length >= size ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
+    /**
+     * @return number of nodes of the abstract graph
+     */
+    public int getNodeCount() {
+        if (!tiles.isLoaded()) {
+            return 0;
+        }
+        continueBuild(Long.MAX_VALUE);
+        update();
+        return clusterBase[clusters.length];
+    }
+
+    /**
+     * @return number of tile changes between solid and walkable so far; paths found before a change may be blocked
+     */
+    public int getSolidChanges() {
+        return solidChanges;
+    }
+
+    /**
+     * @return number of clusters whose distances were searched so far, for benchmarks
+     */
+    public int getRebuiltClusters() {
+        return rebuiltClusters;
+    }
+
+    /**
+     * The nodes of one cluster and the distances between them
+     */
+    private static class Cluster {
+        private int[] cells = new int[8];
+        // sides each node lies on as bits (1 << side), a corner tile can be an opening to two clusters
+        private int[] sides = new int[8];
+        private int count = 0;
+        // count x count distances, -1 if a node can't reach the other inside the cluster
+        private int[] costs = new int[0];
+
+        void add(int cell, int side) {
+            int index = indexOf(cell);
+            if (index >= 0) {
+                sides[index] |= 1 << side;
+                return;
+            }
+            if (count == cells.length) {
+                cells = Arrays.copyOf(cells, count * 2);
+                sides = Arrays.copyOf(sides, count * 2);
+            }
+            cells[count] = cell;
+            sides[count] = 1 << side;
+            count++;
+        }
+
+        /**
+         * Removes the nodes of one side; the order of the remaining nodes changes
+         */
+        void removeSide(int side) {
+            for (int i = count - 1; i >= 0; i--) {
+                sides[i] &= ~(1 << side);
+                if (sides[i] == 0) {
+                    count--;
+                    cells[i] = cells[count];
+                    sides[i] = sides[count];
+                }
+            }
+        }
+
+        int indexOf(int cell) {
+            for (int i = 0; i < count; i++) {
+                if (cells[i] == cell) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
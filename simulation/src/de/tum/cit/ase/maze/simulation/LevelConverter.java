@@ -0,0 +1,58 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts .properties maps into binary levels, which are written next to them.
+ * Arguments are .properties files or directories, which are searched for .properties files.
+ */
+public final class LevelConverter {
+
+    private LevelConverter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("usage: LevelConverter <map.properties | directory>...");
+            return;
+        }
+        for (String arg : args) {
+            Path path = Paths.get(arg);
+            if (Files.isDirectory(path)) {
+                try (DirectoryStream<Path> maps = Files.newDirectoryStream(path, "*.properties")) {
+                    for (Path map : maps) {
+                        convert(map);
+                    }
+                }
+            } else {
+                convert(path);
+            }
+        }
+    }
+
+    /**
+     * Converts a single .properties map
+     *
+     * @param properties
+     * @return the binary level that was written
+     * @throws IOException if the map can't be read or the level can't be written
+     */
+    public static Path convert(Path properties) throws IOException {
+        int[][] map;
+        try (Reader reader = Files.newBufferedReader(properties, StandardCharsets.ISO_8859_1)) {
+            map = TileMap.readProperties(reader);
+        }
+        String name = properties.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        Path level = properties.resolveSibling((dot < 0 ? name : name.substring(0, dot)) + BinaryLevel.EXTENSION);
+        BinaryLevel.write(map, level);
+        System.out.println(properties + " -> " + level + " (" + map.length + "x" + map[0].length + ")");
+        return level;
+    }
+}
@@ -0,0 +1,34 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a map file is malformed. The message contains the line of the error.
+ */
+public class MapFormatException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+    private final String reason;
+
+    /**
+     * @param line    number of the malformed line, starting at 1
+     * @param message what is wrong with the line
+     */
+    public MapFormatException(int line, String message) {
+        super("line " + line + ": " + message);
+        this.line = line;
+        this.reason = message;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return what is wrong with the line, without the line number
+     */
+    public String getReason() {
+        return reason;
+    }
+}
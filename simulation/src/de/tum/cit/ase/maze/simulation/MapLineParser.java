@@ -0,0 +1,139 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.io.IOException;
+
+/**
+ * The MapLineParser class holds the grammar of .properties maps, shared by PropertiesMapParser and
+ * ParallelMapParser: "x,y=tileType" lines (':' works like '='), blanks around the numbers, empty lines
+ * and comments (# or !), and line breaks "\n", "\r" or "\r\n". Subclasses only supply the characters.
+ */
+abstract class MapLineParser {
+    protected final TileEntries entries = new TileEntries();
+    // line breaks consumed so far
+    protected int lines = 0;
+
+    /**
+     * @return the next character without consuming it, or -1 at the end of the input
+     */
+    protected abstract int peek() throws IOException;
+
+    /**
+     * Consumes the character returned by peek
+     */
+    protected abstract void advance();
+
+    /**
+     * Parses all lines until the end of the input into entries
+     *
+     * @throws MapFormatException if a line is malformed, the line number counts from the start of the input
+     */
+    protected void parseLines() throws IOException {
+        int c;
+        while ((c = skipBlanks()) != -1) {
+            if (c == '\n' || c == '\r') {
+                nextLine(c);
+            } else if (c == '#' || c == '!') {
+                skipLine();
+            } else {
+                parseLine();
+            }
+        }
+    }
+
+    /**
+     * Parses "x,y=tileType" starting at the current character, including the line break
+     */
+    private void parseLine() throws IOException {
+        int x = parseNumber(false, "x coordinate");
+        if (skipBlanks() != ',') {
+            throw error("expected ',' after the x coordinate");
+        }
+        advance();
+        int y = parseNumber(false, "y coordinate");
+        int c = skipBlanks();
+        if (c != '=' && c != ':') {
+            throw error("expected '=' after the y coordinate");
+        }
+        advance();
+        int tileType = parseNumber(true, "tile type");
+        c = skipBlanks();
+        if (c == '\n' || c == '\r') {
+            nextLine(c);
+        } else if (c != -1) {
+            throw error("unexpected '" + (char) c + "' after the tile type");
+        }
+        entries.add(x, y, tileType);
+    }
+
+    /**
+     * Parses a decimal number, with blanks before it
+     *
+     * @param signed whether a leading '-' is allowed
+     * @param what   name of the number for error messages
+     */
+    private int parseNumber(boolean signed, String what) throws IOException {
+        int c = skipBlanks();
+        boolean negative = false;
+        if (signed && c == '-') {
+            negative = true;
+            advance();
+            c = peek();
+        }
+        if (c < '0' || c > '9') {
+            throw error("expected " + what);
+        }
+        int value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            if (value > PropertiesMapParser.MAX_COORDINATE) {
+                throw error(what + " is too large");
+            }
+            advance();
+            c = peek();
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Skips spaces and tabs
+     *
+     * @return the next character, which is not consumed, or -1 at the end of the input
+     */
+    private int skipBlanks() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\t' || c == '\f') {
+            advance();
+            c = peek();
+        }
+        return c;
+    }
+
+    private void skipLine() throws IOException {
+        int c = peek();
+        while (c != -1 && c != '\n' && c != '\r') {
+            advance();
+            c = peek();
+        }
+        if (c != -1) {
+            nextLine(c);
+        }
+    }
+
+    /**
+     * Consumes a line break ("\n", "\r" or "\r\n")
+     */
+    private void nextLine(int c) throws IOException {
+        advance();
+        if (c == '\r' && peek() == '\n') {
+            advance();
+        }
+        lines++;
+    }
+
+    /**
+     * @return an exception for the current line
+     */
+    protected MapFormatException error(String message) {
+        return new MapFormatException(lines + 1, message);
+    }
+}
@@ -0,0 +1,243 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The ParallelMapParser class reads very large .properties maps on a ForkJoinPool.
+ * The file is split into ranges that start and end at line breaks, every range is parsed into
+ * its own list of coordinates, and the lists are merged into the grid or store in file order.
+ * Both parsers share the grammar of MapLineParser, so it accepts the same lines as PropertiesMapParser
+ * and produces exactly the same map.
+ */
+public final class ParallelMapParser {
+    // smaller files are parsed faster by PropertiesMapParser
+    public static final long MIN_PARALLEL_SIZE = 1 << 20;
+    private static final int MIN_RANGE_SIZE = 1 << 18;
+
+    private ParallelMapParser() {
+    }
+
+    /**
+     * Maps a file into memory and parses it on the common pool
+     *
+     * @param file
+     * @return tile types indexed by [x][y], tiles not in the file are FLOOR
+     * @throws MapFormatException if a line is malformed or the map has no tiles
+     * @throws IOException        if the file can't be read
+     */
+    public static int[][] parse(Path file) throws IOException {
+        try (FileChannel channel = open(file)) {
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), ForkJoinPool.commonPool());
+        }
+    }
+
+    /**
+     * Maps a file into memory and parses it on the common pool into a store chosen by the share
+     * of non-floor tiles, see TileStore.create
+     *
+     * @param file
+     * @return the tiles, tiles not in the file are FLOOR
+     * @throws MapFormatException if a line is malformed or the map has no tiles
+     * @throws IOException        if the file can't be read
+     */
+    public static TileStore parseStore(Path file) throws IOException {
+        try (FileChannel channel = open(file)) {
+            return parseStore(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), ForkJoinPool.commonPool());
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        if (channel.size() > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("map is too large: " + channel.size() + " bytes");
+        }
+        return channel;
+    }
+
+    /**
+     * Parses the bytes between position and limit of a buffer. The buffer itself is not changed.
+     *
+     * @param bytes map in ASCII
+     * @param pool  pool the ranges are parsed on
+     * @return tile types indexed by [x][y], tiles not in the file are FLOOR
+     * @throws MapFormatException if a line is malformed or the map has no tiles
+     */
+    public static int[][] parse(ByteBuffer bytes, ForkJoinPool pool) throws MapFormatException {
+        Range[] ranges = parseRanges(bytes, pool);
+        int width = 0;
+        int height = 0;
+        for (Range range : ranges) {
+            width = Math.max(width, range.entries.getMaxX() + 1);
+            height = Math.max(height, range.entries.getMaxY() + 1);
+        }
+        int columnHeight = height;
+        int[][] tiles = new int[width][];
+        // fill the grid with FLOOR column by column in parallel, then write the tiles in file order
+        pool.submit(() -> Arrays.parallelSetAll(tiles, x -> {
+            int[] column = new int[columnHeight];
+            Arrays.fill(column, TileMap.FLOOR);
+            return column;
+        })).join();
+        for (Range range : ranges) {
+            range.entries.applyTo(tiles);
+        }
+        return tiles;
+    }
+
+    /**
+     * Parses the bytes between position and limit of a buffer into a store chosen by the share
+     * of non-floor tiles. The buffer itself is not changed.
+     *
+     * @param bytes map in ASCII
+     * @param pool  pool the ranges are parsed on
+     * @return the tiles, tiles not in the file are FLOOR
+     * @throws MapFormatException if a line is malformed or the map has no tiles
+     */
+    public static TileStore parseStore(ByteBuffer bytes, ForkJoinPool pool) throws MapFormatException {
+        Range[] ranges = parseRanges(bytes, pool);
+        int width = 0;
+        int height = 0;
+        long nonFloorTiles = 0;
+        for (Range range : ranges) {
+            width = Math.max(width, range.entries.getMaxX() + 1);
+            height = Math.max(height, range.entries.getMaxY() + 1);
+            nonFloorTiles += range.entries.getNonFloorTiles();
+        }
+        TileStore store = TileStore.create(width, height, nonFloorTiles);
+        for (Range range : ranges) {
+            range.entries.applyTo(store);
+        }
+        return store;
+    }
+
+    /**
+     * Splits the buffer into ranges and parses them on the pool
+     *
+     * @throws MapFormatException if a line is malformed or the map has no tiles
+     */
+    private static Range[] parseRanges(ByteBuffer bytes, ForkJoinPool pool) throws MapFormatException {
+        int[] bounds = splitRanges(bytes, pool.getParallelism());
+        Range[] ranges = new Range[bounds.length - 1];
+        for (int i = 0; i < ranges.length; i++) {
+            ranges[i] = new Range(bytes, bounds[i], bounds[i + 1]);
+        }
+        pool.invoke(new ParseTask(ranges, 0, ranges.length));
+
+        // line numbers are only known once every range has counted its lines
+        boolean empty = true;
+        int linesBefore = 0;
+        for (Range range : ranges) {
+            if (range.errorMessage != null) {
+                throw new MapFormatException(linesBefore + range.errorLine, range.errorMessage);
+            }
+            empty &= range.entries.getMaxX() < 0;
+            linesBefore += range.lines;
+        }
+        if (empty) {
+            throw new MapFormatException(linesBefore + 1, "the map has no tiles");
+        }
+        return ranges;
+    }
+
+    /**
+     * Splits the buffer into ranges of similar size, every range but the last ends after a line break
+     *
+     * @return start of every range, followed by the end of the last one
+     */
+    private static int[] splitRanges(ByteBuffer bytes, int parallelism) {
+        int start = bytes.position();
+        int end = bytes.limit();
+        int rangeSize = Math.max(MIN_RANGE_SIZE, (end - start) / (parallelism * 4));
+        int[] bounds = new int[(end - start) / rangeSize + 2];
+        int count = 0;
+        bounds[count++] = start;
+        int position = start;
+        while (end - position > rangeSize) {
+            position += rangeSize;
+            while (position < end && bytes.get(position - 1) != '\n'
+                    && !(bytes.get(position - 1) == '\r' && bytes.get(position) != '\n')) {
+                position++;
+            }
+            bounds[count++] = position;
+        }
+        if (count == 1 || bounds[count - 1] != end) {
+            bounds[count++] = end;
+        }
+        return Arrays.copyOf(bounds, count);
+    }
+
+    /**
+     * Parses the ranges from..to, splitting them in halves until only one is left
+     */
+    @SuppressWarnings("serial") // never serialized, only run on the pool
+    private static class ParseTask extends RecursiveAction {
+        private final Range[] ranges;
+        private final int from;
+        private final int to;
+
+        ParseTask(Range[] ranges, int from, int to) {
+            this.ranges = ranges;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                ranges[from].parse();
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParseTask(ranges, from, middle), new ParseTask(ranges, middle, to));
+        }
+    }
+
+    /**
+     * A line-aligned part of the file and the coordinates parsed from it
+     */
+    private static class Range extends MapLineParser {
+        private final ByteBuffer bytes;
+        private int position;
+        private final int end;
+
+        // line inside the range (starting at 1) and reason of the first malformed line
+        private int errorLine;
+        private String errorMessage;
+
+        Range(ByteBuffer bytes, int start, int end) {
+            this.bytes = bytes;
+            this.position = start;
+            this.end = end;
+        }
+
+        void parse() {
+            try {
+                parseLines();
+            } catch (MapFormatException e) {
+                errorLine = e.getLine();
+                errorMessage = e.getReason();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // the bytes are in memory, peek can't fail
+            }
+        }
+
+        @Override
+        protected int peek() {
+            return position < end ? bytes.get(position) & 0xFF : -1;
+        }
+
+        @Override
+        protected void advance() {
+            position++;
+        }
+    }
+}
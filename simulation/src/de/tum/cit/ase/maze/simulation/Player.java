@@ -0,0 +1,189 @@
+package de.tum.cit.ase.maze.simulation;
+
+/**
+ * The Player class is responsible for the movement of the character.
+ * It creates boundaries, such that the character can't collide with certain objects (like WALL)
+ * or loses a life when collision is detected (like ENEMY or TRAP).
+ */
+public class Player {
+    public static final float DEFAULT_SPEED = 375f;
+
+    private float xPosition;
+    private float yPosition;
+    private int width;
+    private int height;
+    private TileMap tiles;
+    private boolean hasKey = false;
+    private int lives = 5;
+    private boolean isDamaged;
+    private float speed = DEFAULT_SPEED;
+
+    private float trapCooldownTimer = 0f; // Timer to manage the cooldown period
+    private float enemyCooldownTimer = 0f;
+    private final float trapCooldown = 1f;
+    private final float enemyCooldown = 1f;
+
+    public Player(int width, int height, TileMap tiles) {
+        this.tiles = tiles;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Character moves up/down/left/right if the character won't collide with a wall.
+     * Sets map boundaries, such that the character is unable to walk off the map.
+     *
+     * @param amount movement amount for the character per game frame
+     */
+    public void moveLeft(float amount) {
+        if (!tiles.isWall(this.xPosition - amount, this.yPosition)
+                && tiles.isWithinBounds((int) ((this.xPosition - 60) / 64), (int) ((this.yPosition) / 64))) {
+            this.xPosition -= amount;
+        }
+    }
+
+    public void moveRight(float amount) {
+        if (!tiles.isWall(this.xPosition + amount, this.yPosition)
+                && tiles.isWithinBounds((int) ((this.xPosition + 40) / 64), (int) ((this.yPosition) / 64))) {
+            this.xPosition += amount;
+        }
+    }
+
+    public void moveUp(float amount) {
+        if (!tiles.isWall(this.xPosition, this.yPosition + amount)
+                && tiles.isWithinBounds((int) ((this.xPosition) / 64), (int) ((this.yPosition) / 64))) {
+            this.yPosition += amount;
+        }
+    }
+
+    public void moveDown(float amount) {
+        if (!tiles.isWall(this.xPosition, this.yPosition - amount)
+                && tiles.isWithinBounds((int) ((this.xPosition) / 64), (int) ((this.yPosition - 40) / 64))) {
+            this.yPosition -= amount;
+        }
+    }
+
+    /**
+     * Updates game state by decreasing cooldown timers for traps and enemies.
+     *
+     * @param deltaTime time elapsed since the last update call, used to
+     *                  decrement the cooldown timers for traps and enemies
+     */
+    public void update(float deltaTime) {
+        if (trapCooldownTimer > 0) {
+            trapCooldownTimer -= deltaTime;
+        }
+        if (enemyCooldownTimer > 0) {
+            enemyCooldownTimer -= deltaTime;
+        }
+        checkForTrap();
+        checkForEnemy();
+    }
+
+    /**
+     * Uses findEntryCell method to retrieve x and y coordinates of entry,
+     * scales and sets the spawn of the map to those coordinates.
+     *
+     * @param tiles
+     */
+    public void setToEntryPoint(TileMap tiles) {
+        int entry = tiles.findEntryCell();
+        xPosition = tiles.cellX(entry) * TileMap.TILE_SIZE;
+        yPosition = tiles.cellY(entry) * TileMap.TILE_SIZE;
+    }
+
+    /**
+     * Checks if the position of the character is a trap / enemy.
+     * If it is, the character loses one heart, and the cooldown is reset
+     */
+    public void checkForTrap() {
+        if (tiles.isTrap(this.xPosition + 40, this.yPosition + 40)) {
+            if (trapCooldownTimer <= 0) {
+                decreaseHealth(1);
+                isDamaged = true;
+                trapCooldownTimer = trapCooldown; // Reset the cooldown timer
+            }
+        }
+    }
+
+    private void checkForEnemy() {
+        if (tiles.isEnemy(this.xPosition + 20, this.yPosition + 20)) {
+            if (enemyCooldownTimer <= 0) {
+                decreaseHealth(1);
+                setDamaged(true);
+                enemyCooldownTimer = enemyCooldown; // Reset the cooldown timer
+            }
+        } else {
+            enemyCooldownTimer = 0;
+        }
+    }
+
+    /**
+     * Character lives decrease by the amount, but never below zero.
+     *
+     * @param amount
+     */
+    public void decreaseHealth(int amount) {
+        if (lives > 0) {
+            lives -= amount;
+        }
+    }
+
+    public void increaseHealth(int amount) {
+        lives += amount;
+    }
+
+
+    public float getxPosition() {
+        return xPosition;
+    }
+
+    public float getyPosition() {
+        return yPosition;
+    }
+
+    public void setxPosition(float xPosition) {
+        this.xPosition = xPosition;
+    }
+
+    public void setyPosition(float yPosition) {
+        this.yPosition = yPosition;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public void setLives(int lives) {
+        this.lives = lives;
+    }
+
+    public boolean isHasKey() {
+        return hasKey;
+    }
+
+    public void setHasKey(boolean hasKey) {
+        this.hasKey = hasKey;
+    }
+
+    public TileMap getTiles() {
+        return tiles;
+    }
+
+    public boolean isDamaged() {
+        return isDamaged;
+    }
+
+    public void setDamaged(boolean damaged) {
+        isDamaged = damaged;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public void setSpeed(float speed) {
+        this.speed = speed;
+    }
+
+}
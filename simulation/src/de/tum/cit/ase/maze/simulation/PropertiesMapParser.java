@@ -0,0 +1,91 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * The PropertiesMapParser class reads a .properties map ("x,y=tileType" per line) in a single pass.
+ * Numbers are parsed directly from the read buffer, without building a Properties table or any strings,
+ * and the tiles are collected until the size of the map is known. Empty lines and comments (# or !) are skipped,
+ * like in java.util.Properties; if a tile is set twice, the last line wins.
+ */
+public final class PropertiesMapParser extends MapLineParser {
+    // larger coordinates are rejected instead of allocating a huge grid
+    public static final int MAX_COORDINATE = 1 << 15;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+
+    private PropertiesMapParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads a whole map
+     *
+     * @param reader
+     * @return tile types indexed by [x][y], tiles not in the file are FLOOR
+     * @throws MapFormatException if a line is malformed or the map has no tiles
+     * @throws IOException        if the map can't be read
+     */
+    public static int[][] parse(Reader reader) throws IOException {
+        PropertiesMapParser parser = new PropertiesMapParser(reader);
+        parser.parse();
+        int[][] tiles = new int[parser.entries.getMaxX() + 1][parser.entries.getMaxY() + 1];
+        for (int[] column : tiles) {
+            Arrays.fill(column, TileMap.FLOOR);
+        }
+        parser.entries.applyTo(tiles);
+        return tiles;
+    }
+
+    /**
+     * Reads a whole map into a store chosen by the share of non-floor tiles, see TileStore.create.
+     * Mostly empty maps never allocate a grid for the whole map.
+     *
+     * @param reader
+     * @return the tiles, tiles not in the file are FLOOR
+     * @throws MapFormatException if a line is malformed or the map has no tiles
+     * @throws IOException        if the map can't be read
+     */
+    public static TileStore parseStore(Reader reader) throws IOException {
+        PropertiesMapParser parser = new PropertiesMapParser(reader);
+        parser.parse();
+        TileEntries entries = parser.entries;
+        TileStore store = TileStore.create(entries.getMaxX() + 1, entries.getMaxY() + 1, entries.getNonFloorTiles());
+        entries.applyTo(store);
+        return store;
+    }
+
+    private void parse() throws IOException {
+        parseLines();
+        if (entries.getMaxX() < 0) {
+            throw error("the map has no tiles");
+        }
+    }
+
+    @Override
+    protected void advance() {
+        position++;
+    }
+
+    /**
+     * @return the next character without consuming it, or -1 at the end of the file
+     */
+    @Override
+    protected int peek() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+}
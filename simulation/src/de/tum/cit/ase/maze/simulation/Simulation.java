@@ -0,0 +1,272 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.util.Random;
+
+/**
+ * The Simulation class runs the game logic of a level one tick at a time:
+ * player movement, enemies chasing the player, pickups, attacks, damage and the exit.
+ * It doesn't use libGDX, so it can be stepped without a window, for example in tests, bots or benchmarks.
+ */
+public class Simulation {
+    public static final float ENEMY_MOVE_INTERVAL = 0.25f; // seconds between two enemy moves
+    public static final float EXIT_DELAY = 1f; // seconds between opening the exit and finishing the level
+
+    // the exit is solid, so it opens when it is at most this far from the hitbox of the player
+    public static final float EXIT_REACH = 16f;
+
+    private static final SimulationListener NO_LISTENER = new SimulationListener() {
+    };
+
+    private final TileMap tiles;
+    private final FlowField chaseField;
+    private final EnemyPerception perception;
+    private final EnemyScheduler scheduler;
+    private final Player player;
+    private final Random random;
+    private SimulationListener listener = NO_LISTENER;
+
+    private float enemyMoveTimer = 0f;
+    private int keysCollected = 0;
+    private boolean isExiting = false;
+    private float exitTimeCounter = 0f;
+    private boolean levelFinished = false;
+    private long tickCount = 0;
+
+    /**
+     * @param tiles  map of the level, already loaded
+     * @param player the player walking through the map
+     * @param random source for enemy movement
+     */
+    public Simulation(TileMap tiles, Player player, Random random) {
+        this.tiles = tiles;
+        this.chaseField = new FlowField(tiles, FlowField.DEFAULT_RADIUS);
+        this.perception = new EnemyPerception(tiles, EnemyPerception.DEFAULT_MIN_RADIUS,
+                EnemyPerception.DEFAULT_MAX_RADIUS, EnemyPerception.DEFAULT_RAY_BUDGET);
+        this.scheduler = new EnemyScheduler(tiles, EnemyScheduler.DEFAULT_ACTIVE_RADIUS,
+                EnemyScheduler.DEFAULT_REDUCED_RADIUS);
+        this.player = player;
+        this.random = random;
+    }
+
+    /**
+     * Advances the game by one tick
+     *
+     * @param delta    length of the tick in seconds
+     * @param controls buttons held during the tick, see Controls
+     */
+    public void tick(float delta, int controls) {
+        movePlayer(delta, controls);
+
+        enemyMoveTimer += delta;
+        while (enemyMoveTimer >= ENEMY_MOVE_INTERVAL) {
+            enemyMoveTimer -= ENEMY_MOVE_INTERVAL;
+            // one search for all enemies, only if the player changed tiles or the map changed
+            chaseField.update(playerTileX(), playerTileY());
+            // only enemies that saw the player chase it
+            perception.update(playerTileX(), playerTileY());
+            // enemies far from the player move less often or sleep
+            scheduler.moveEnemies(playerTileX(), playerTileY(), random, chaseField, perception);
+        }
+
+        checkForKeyCollision();
+        checkForHeartCollision();
+        checkForLemonCollision();
+        if ((controls & Controls.ATTACK) != 0) {
+            attack();
+        }
+
+        int lives = player.getLives();
+        player.update(delta);
+        if (player.getLives() < lives) {
+            listener.playerDamaged(player.getLives());
+        }
+
+        checkForExitCollision(delta);
+        tickCount++;
+    }
+
+    /**
+     * Moves the player in the direction of the first held button (left, right, up, down)
+     */
+    private void movePlayer(float delta, int controls) {
+        float moveAmount = delta * player.getSpeed();
+        if ((controls & Controls.LEFT) != 0) {
+            player.moveLeft(moveAmount);
+        } else if ((controls & Controls.RIGHT) != 0) {
+            player.moveRight(moveAmount);
+        } else if ((controls & Controls.UP) != 0) {
+            player.moveUp(moveAmount);
+        } else if ((controls & Controls.DOWN) != 0) {
+            player.moveDown(moveAmount);
+        }
+    }
+
+    /**
+     * @return column of the tile the player stands on
+     */
+    public int playerTileX() {
+        return (int) ((player.getxPosition() + 12) / TileMap.TILE_SIZE);
+    }
+
+    /**
+     * @return row of the tile the player stands on
+     */
+    public int playerTileY() {
+        return (int) ((player.getyPosition() + 12) / TileMap.TILE_SIZE);
+    }
+
+    /**
+     * Removes all enemies on the tiles around the player. The enemies are looked up in their entity list
+     * instead of reading the tiles, which may have to be paged in first.
+     */
+    private void attack() {
+        int characterTileX = playerTileX();
+        int characterTileY = playerTileY();
+        EntityList enemies = tiles.getEntities(TileMap.ENEMY);
+
+        for (int x = characterTileX - 1; x <= characterTileX + 1; x++) {
+            for (int y = characterTileY - 1; y <= characterTileY + 1; y++) {
+                if (tiles.isWithinBounds(x, y) && enemies.contains(tiles.cellIndex(x, y))) {
+                    tiles.setTile(x, y, TileMap.FLOOR);
+                    listener.enemyKilled(x, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the position of the character corresponds to the tile
+     * of a key and adds one key to the character's inventory.
+     */
+    private void checkForKeyCollision() {
+        int x = playerTileX();
+        int y = playerTileY();
+        if (tiles.remove(x, y, TileMap.KEY)) {
+            player.setHasKey(true);
+            keysCollected++;
+            listener.keyCollected(x, y);
+        }
+    }
+
+    /**
+     * Checks if the position of the character corresponds to the tile
+     * of a heart and adds one live to the character's health.
+     */
+    private void checkForHeartCollision() {
+        int x = playerTileX();
+        int y = playerTileY();
+        if (tiles.remove(x, y, TileMap.HEART)) {
+            if (player.getLives() <= 5) {
+                player.increaseHealth(1);
+            }
+            listener.heartCollected(x, y);
+        }
+    }
+
+    /**
+     * Checks if the position of the character corresponds to the tile
+     * of a lemon and adds the ability to walk faster.
+     */
+    private void checkForLemonCollision() {
+        int x = playerTileX();
+        int y = playerTileY();
+        if (tiles.remove(x, y, TileMap.LEMON)) {
+            player.setSpeed(player.getSpeed() * 1.5f);
+            listener.lemonCollected(x, y);
+        }
+    }
+
+    /**
+     * Checks if the character touches an exit while carrying a key,
+     * opens it and finishes the level EXIT_DELAY seconds later.
+     */
+    private void checkForExitCollision(float delta) {
+        if (player.isHasKey()) {
+            float x = player.getxPosition();
+            float y = player.getyPosition();
+
+            // same hitbox as TileMap.isWall, grown by EXIT_REACH
+            int exit = tiles.findTouching(TileMap.EXIT, x + 6 - EXIT_REACH, y + 20 - EXIT_REACH,
+                    x + 50 + EXIT_REACH, y + 40 + EXIT_REACH);
+            if (exit >= 0) {
+                int exitX = tiles.cellX(exit);
+                int exitY = tiles.cellY(exit);
+                tiles.remove(exitX, exitY, TileMap.EXIT);
+                keysCollected = 0;
+                isExiting = true;
+                listener.exitOpened(exitX, exitY);
+            }
+        }
+
+        if (isExiting) {
+            exitTimeCounter += delta;
+        }
+        if (exitTimeCounter >= EXIT_DELAY) {
+            levelFinished = true;
+            isExiting = false;
+            exitTimeCounter = 0;
+        }
+    }
+
+    /**
+     * Stops listening to the map, for example before a new simulation is created for it
+     */
+    public void detach() {
+        perception.detach();
+        scheduler.detach();
+    }
+
+    public TileMap getTiles() {
+        return tiles;
+    }
+
+    public FlowField getChaseField() {
+        return chaseField;
+    }
+
+    public EnemyPerception getPerception() {
+        return perception;
+    }
+
+    /**
+     * @return the scheduler of the enemy moves, its counts of active and sleeping enemies are metrics
+     */
+    public EnemyScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public void setListener(SimulationListener listener) {
+        this.listener = listener == null ? NO_LISTENER : listener;
+    }
+
+    public int getKeysCollected() {
+        return keysCollected;
+    }
+
+    public void setKeysCollected(int keysCollected) {
+        this.keysCollected = keysCollected;
+    }
+
+    public boolean isExiting() {
+        return isExiting;
+    }
+
+    public void setExiting(boolean exiting) {
+        isExiting = exiting;
+    }
+
+    /**
+     * @return whether the exit was opened and EXIT_DELAY seconds have passed since
+     */
+    public boolean isLevelFinished() {
+        return levelFinished;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+}
@@ -0,0 +1,26 @@
+package de.tum.cit.ase.maze.simulation;
+
+/**
+ * Gets notified about events of a Simulation, for example to play sounds.
+ * All methods do nothing by default, so only the interesting ones have to be implemented.
+ */
+public interface SimulationListener {
+
+    default void keyCollected(int x, int y) {
+    }
+
+    default void heartCollected(int x, int y) {
+    }
+
+    default void lemonCollected(int x, int y) {
+    }
+
+    default void exitOpened(int x, int y) {
+    }
+
+    default void enemyKilled(int x, int y) {
+    }
+
+    default void playerDamaged(int livesLeft) {
+    }
+}
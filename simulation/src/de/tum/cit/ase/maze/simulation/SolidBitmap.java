@@ -0,0 +1,103 @@
+package de.tum.cit.ase.maze.simulation;
+
+/**
+ * The SolidBitmap class keeps one bit per tile that tells whether the tile blocks movement.
+ * Every row starts at a new long, so a rectangle of tiles is tested with a few word operations per row.
+ */
+public class SolidBitmap extends Bitboard {
+
+    /**
+     * Creates a bitmap without any solid tiles
+     *
+     * @param width  map width in tiles
+     * @param height map height in tiles
+     */
+    public SolidBitmap(int width, int height) {
+        super(width, height);
+    }
+
+    /**
+     * Checks if any tile inside the (inclusive) rectangle blocks movement.
+     * Parts of the rectangle outside the map are not solid.
+     *
+     * @param minX
+     * @param minY
+     * @param maxX
+     * @param maxY
+     * @return whether at least one tile in the rectangle is solid
+     */
+    public boolean intersects(int minX, int minY, int maxX, int maxY) {
+        minX = Math.max(minX, 0);
+        minY = Math.max(minY, 0);
+        maxX = Math.min(maxX, width - 1);
+        maxY = Math.min(maxY, height - 1);
+        if (minX > maxX || minY > maxY) {
+            return false;
+        }
+        int firstWord = minX >>> 6;
+        int lastWord = maxX >>> 6;
+        long firstMask = -1L << (minX & 63); // bits from minX on
+        long lastMask = -1L >>> (63 - (maxX & 63)); // bits up to maxX
+        if (firstWord == lastWord) {
+            firstMask &= lastMask;
+        }
+        for (int row = minY * wordsPerRow; row <= maxY * wordsPerRow; row += wordsPerRow) {
+            if ((bits[row + firstWord] & firstMask) != 0) {
+                return true;
+            }
+            if (firstWord != lastWord) {
+                for (int word = row + firstWord + 1; word < row + lastWord; word++) {
+                    if (bits[word] != 0) {
+                        return true;
+                    }
+                }
+                if ((bits[row + lastWord] & lastMask) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Casts a ray between the centres of two tiles along the Bresenham line.
+     * Only the tiles between the two ends are tested, and if the rectangle spanned by the ends
+     * has no solid tile at all, the line is not walked.
+     *
+     * @param fromX tiles inside the map
+     * @param fromY
+     * @param toX
+     * @param toY
+     * @return whether no solid tile blocks the line
+     */
+    public boolean hasLineOfSight(int fromX, int fromY, int toX, int toY) {
+        if (fromX == toX && fromY == toY
+                || !intersects(Math.min(fromX, toX),Math.min(fromY, toY), Math.max(fromX, toX), Math.max(fromY, toY))) {
+            return true;
+        }
+        int dx = Math.abs(toX - fromX);
+        int dy = -Math.abs(toY - fromY);
+        int stepX = fromX < toX ? 1 : -1;
+        int stepY = fromY < toY ? 1 : -1;
+        int error = dx + dy;
+        int x = fromX;
+        int y = fromY;
+        while (true) {
+            int doubled = 2 * error;
+            if (doubled >= dy) {
+                error += dy;
+                x += stepX;
+            }
+            if (doubled <= dx) {
+                error += dx;
+                y += stepY;
+            }
+            if (x == toX && y == toY) {
+                return true;
+            }
+            if ((bits[y * wordsPerRow + (x >>> 6)] & (1L << (x & 63))) != 0) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.util.Arrays;
+
+/**
+ * The SparseTileStore class keeps only the tiles that are not floor, in an open addressing
+ * hash table from cell index (y * width + x) to tile type. Memory depends on the number of
+ * objects and walls instead of the size of the map, which suits maps that are mostly empty.
+ */
+public class SparseTileStore implements TileStore {
+    private static final int EMPTY = -1;
+
+    private final int width;
+    private final int height;
+    private int[] cells;
+    private byte[] types;
+    private int mask;
+    private int size = 0;
+
+    /**
+     * Creates a map that is all floor
+     *
+     * @param width
+     * @param height
+     * @param expectedTiles number of non-floor tiles the table is sized for
+     */
+    public SparseTileStore(int width, int height, int expectedTiles) {
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid size " + width + "x" + height);
+        }
+        this.width = width;
+        this.height = height;
+        // keep the table at most half full
+        allocateTable(Math.max(16, Integer.highestOneBit(Math.max(1, expectedTiles)) << 2));
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getTile(int x, int y) {
+        int slot = find(y * width + x);
+        return slot >= 0 ? types[slot] : TileMap.FLOOR;
+    }
+
+    @Override
+    public void setTile(int x, int y, int tileType) {
+        int cell = y * width + x;
+        int slot = find(cell);
+        if (tileType == TileMap.FLOOR) {
+            if (slot >= 0) {
+                deleteSlot(slot);
+                size--;
+            }
+            return;
+        }
+        if (slot >= 0) {
+            types[slot] = (byte) tileType;
+            return;
+        }
+        if ((size + 1) * 2 > cells.length) {
+            grow();
+        }
+        insert(cell, (byte) tileType);
+        size++;
+    }
+
+    /**
+     * Caches with one entry per tile would take more memory than the tiles themselves
+     */
+    @Override
+    public boolean isDense() {
+        return false;
+    }
+
+    /**
+     * Visits the tiles in the same order as the default scan, so the entity lists of TileMap
+     * and with them the order enemies move in are the same as for a dense map
+     */
+    @Override
+    public void forEachTile(TileVisitor visitor) {
+        long blocksPerRow = (width + 63) >>> 6;
+        long[] order = new long[size];
+        int count = 0;
+        for (int cell : cells) {
+            if (cell != EMPTY) {
+                int x = cell % width;
+                int y = cell / width;
+                long block = (y >>> 6) * blocksPerRow + (x >>> 6);
+                order[count++] = block << 12 | (y & 63) << 6 | (x & 63);
+            }
+        }
+        Arrays.sort(order);
+        for (long key : order) {
+            long block = key >>> 12;
+            int x = (int) (block % blocksPerRow) << 6 | (int) key & 63;
+            int y = (int) (block / blocksPerRow) << 6 | (int) (key >>> 6) & 63;
+            visitor.visit(x, y, getTile(x, y));
+        }
+    }
+
+    /**
+     * @return number of tiles that are not floor
+     */
+    public int size() {
+        return size;
+    }
+
+    private void allocateTable(int capacity) {
+        cells = new int[capacity];
+        types = new byte[capacity];
+        Arrays.fill(cells, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        int[] oldCells = cells;
+        byte[] oldTypes = types;
+        allocateTable(cells.length * 2);
+        for (int i = 0; i < oldCells.length; i++) {
+            if (oldCells[i] != EMPTY) {
+                insert(oldCells[i], oldTypes[i]);
+            }
+        }
+    }
+
+    private static int hash(int cell) {
+        int h = cell * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int find(int cell) {
+        int slot = hash(cell) & mask;
+        while (cells[slot] != EMPTY) {
+            if (cells[slot] == cell) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(int cell, byte type) {
+        int slot = hash(cell) & mask;
+        while (cells[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        cells[slot] = cell;
+        types[slot] = type;
+    }
+
+    /**
+     * Empties a slot and moves later entries of the same probe run back, so lookups don't stop early
+     */
+    private void deleteSlot(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (cells[next] != EMPTY) {
+            int home = hash(cells[next]) & mask;
+            // move the entry if its home slot is not between the hole and its current slot
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                cells[hole] = cells[next];
+                types[hole] = types[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        cells[hole] = EMPTY;
+    }
+}
@@ -0,0 +1,70 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.util.Arrays;
+
+/**
+ * The TileEntries class collects the tiles of a map file in file order, as x, y and tile type
+ * packed into one int array, until the size of the map is known.
+ */
+final class TileEntries {
+    private int[] entries = new int[3 * 1024];
+    private int size = 0;
+    private int maxX = -1;
+    private int maxY = -1;
+    private int nonFloorTiles = 0;
+
+    void add(int x, int y, int tileType) {
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size * 2);
+        }
+        entries[size++] = x;
+        entries[size++] = y;
+        entries[size++] = tileType;
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+        if (tileType != TileMap.FLOOR) {
+            nonFloorTiles++;
+        }
+    }
+
+    /**
+     * Writes the tiles into a grid, later entries overwrite earlier ones
+     *
+     * @param grid tile types indexed by [x][y], large enough for all entries
+     */
+    void applyTo(int[][] grid) {
+        for (int i = 0; i < size; i += 3) {
+            grid[entries[i]][entries[i + 1]] = entries[i + 2];
+        }
+    }
+
+    /**
+     * Writes the tiles into a store, later entries overwrite earlier ones
+     *
+     * @param store large enough for all entries
+     */
+    void applyTo(TileStore store) {
+        for (int i = 0; i < size; i += 3) {
+            int tileType = entries[i + 2];
+            if (tileType < Byte.MIN_VALUE || tileType > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("tile type " + tileType + " at " + entries[i] + "," + entries[i + 1] + " doesn't fit into a byte");
+            }
+            store.setTile(entries[i], entries[i + 1], tileType);
+        }
+    }
+
+    int getMaxX() {
+        return maxX;
+    }
+
+    int getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return number of entries that are not floor, tiles listed twice count twice
+     */
+    int getNonFloorTiles() {
+        return nonFloorTiles;
+    }
+}
@@ -0,0 +1,29 @@
+package de.tum.cit.ase.maze.simulation;
+
+/**
+ * Gets notified about changes of a TileMap, for example to keep cached graphics up to date.
+ */
+public interface TileListener {
+
+    /**
+     * Called after a new map was loaded
+     *
+     * @param width  map width in tiles
+     * @param height map height in tiles
+     */
+    void mapLoaded(int width, int height);
+
+    /**
+     * Called after a tile changed its type
+     */
+    void tileChanged(int x, int y, int oldType, int newType);
+
+    /**
+     * Called after an enemy stepped from one floor tile to another, instead of two calls of tileChanged,
+     * so listeners that keep something for each enemy can move it along
+     */
+    default void enemyMoved(int fromX, int fromY, int toX, int toY) {
+        tileChanged(fromX, fromY, TileMap.ENEMY, TileMap.FLOOR);
+        tileChanged(toX, toY, TileMap.FLOOR, TileMap.ENEMY);
+    }
+}
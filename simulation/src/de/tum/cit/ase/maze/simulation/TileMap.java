@@ -0,0 +1,737 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The TileMap class holds the tiles of a level and the rules that only depend on them:
+ * collision queries, wall variants, the cells of the dynamic objects and enemy movement.
+ * It doesn't use libGDX, so the game logic can run without a window.
+ * The tiles themselves are kept in a TileStore; caches with one entry per tile (wall variants,
+ * solid bitmap) are only built when the store is dense.
+ */
+public class TileMap {
+    public static final int FLOOR = -1;
+    public static final int WALL = 0;
+    public static final int ENTRY = 1;
+    public static final int EXIT = 2;
+    public static final int TRAP = 3;
+    public static final int ENEMY = 4;
+    public static final int KEY = 5;
+    public static final int HEART = 6;
+    public static final int LEMON = 7;
+
+    // size of a tile in world coordinates
+    public static final int TILE_SIZE = 64;
+    // random tiles placeRandomly tries before it collects the floor tiles
+    private static final int RANDOM_ATTEMPTS = 32;
+
+    private TileStore store;
+    private int width;
+    private int height;
+    // wall variant of every tile row by row: index = y * width + x
+    private byte[] wallVariants;
+    // tiles the player can't walk into (walls and the closed exit)
+    private SolidBitmap solid;
+    // cells of the dynamic objects, the entries and the exits, kept in sync with the map by setTile
+    private final EntityList entryCells = new EntityList();
+    private final EntityList exitCells = new EntityList();
+    private final EntityList keyCells = new EntityList();
+    private final EntityList trapCells = new EntityList();
+    private final EntityList enemyCells = new EntityList();
+    private final EntityList heartCells = new EntityList();
+    private final EntityList lemonCells = new EntityList();
+
+    // changes whenever a tile changes, except for enemies moving over floor
+    private long layoutVersion = 0;
+
+    private boolean heartPlaced = false;
+    private boolean lemonPlaced = false;
+    private TileListener[] listeners = new TileListener[0];
+
+    /**
+     * Loads a .properties map ("x,y=tileType" per line). Large maps that are mostly floor are kept
+     * in a SparseTileStore, see TileStore.create. If the map is malformed, the current map is kept.
+     *
+     * @param reader
+     * @throws MapFormatException if a line of the map is malformed
+     * @throws IOException        if the map can't be read
+     */
+    public void load(Reader reader) throws IOException {
+        setStore(PropertiesMapParser.parseStore(reader));
+    }
+
+    /**
+     * Loads a large .properties map using all cores, see ParallelMapParser.
+     * The store is chosen like in load. If the map is malformed, the current map is kept.
+     *
+     * @param file
+     * @throws MapFormatException if a line of the map is malformed
+     * @throws IOException        if the map can't be read
+     */
+    public void loadParallel(Path file) throws IOException {
+        setStore(ParallelMapParser.parseStore(file));
+    }
+
+    /**
+     * Loads a binary level, see BinaryLevel
+     *
+     * @param file
+     * @throws IOException if the file can't be read or is not a valid binary level
+     */
+    public void loadBinary(Path file) throws IOException {
+        setStore(BinaryLevel.read(file));
+    }
+
+    /**
+     * Reads a .properties map ("x,y=tileType" per line), see PropertiesMapParser
+     *
+     * @param reader
+     * @return tile types indexed by [x][y]
+     * @throws MapFormatException if a line of the map is malformed
+     * @throws IOException        if the map can't be read
+     */
+    public static int[][] readProperties(Reader reader) throws IOException {
+        return PropertiesMapParser.parse(reader);
+    }
+
+    /**
+     * Replaces the whole map, for example with a map that was generated instead of loaded
+     *
+     * @param map tile types indexed by [x][y], all columns have the same height
+     */
+    public void setTiles(int[][] map) {
+        int width = map.length;
+        int height = map[0].length;
+        byte[] tiles = new byte[width * height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int tile = map[x][y];
+                if (tile < Byte.MIN_VALUE || tile > Byte.MAX_VALUE) {
+                    throw new IllegalArgumentException("tile type " + tile + " at " + x + "," + y + " doesn't fit into a byte");
+                }
+                tiles[y * width + x] = (byte) tile;
+            }
+        }
+        setTiles(width, height, tiles);
+    }
+
+    /**
+     * Replaces the whole map with tiles stored row by row. The array is used directly, not copied.
+     *
+     * @param width
+     * @param height
+     * @param tiles  tile types, index = y * width + x
+     */
+    public void setTiles(int width, int height, byte[] tiles) {
+        setStore(new DenseTileStore(width, height, tiles));
+    }
+
+    /**
+     * Replaces the whole map with the tiles of a store, for example a ChunkedTileStore for very large maps.
+     * The previous store is closed.
+     *
+     * @param store
+     */
+    public void setStore(TileStore store) {
+        if ((long) store.getWidth() * store.getHeight() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maps are limited to " + Integer.MAX_VALUE + " tiles, cell indices are ints");
+        }
+        if (this.store != null && this.store != store) {
+            try {
+                this.store.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        this.store = store;
+        this.width = store.getWidth();
+        this.height = store.getHeight();
+        heartPlaced = false;
+        lemonPlaced = false;
+        layoutVersion++;
+        collectEntities();
+        computeWallVariants();
+        computeSolid();
+        for (TileListener listener : listeners) {
+            listener.mapLoaded(getWidth(), getHeight());
+        }
+    }
+
+    /**
+     * Fills the entity lists with the special tiles of a freshly loaded map
+     */
+    private void collectEntities() {
+        entryCells.clear();
+        exitCells.clear();
+        keyCells.clear();
+        trapCells.clear();
+        enemyCells.clear();
+        heartCells.clear();
+        lemonCells.clear();
+        store.forEachEntity((x, y, tileType) -> {
+            EntityList entities = getEntities(tileType);
+            if (entities != null) {
+                entities.add(cellIndex(x, y));
+            }
+        });
+    }
+
+    /**
+     * Returns the list holding the cells of all tiles of a type, an index of the special tiles
+     * that is updated whenever a tile changes
+     *
+     * @param tileType
+     * @return the list, or null for floor and walls
+     */
+    public EntityList getEntities(int tileType) {
+        return switch (tileType) {
+            case ENTRY -> entryCells;
+            case EXIT -> exitCells;
+            case KEY -> keyCells;
+            case TRAP -> trapCells;
+            case ENEMY -> enemyCells;
+            case HEART -> heartCells;
+            case LEMON -> lemonCells;
+            default -> null;
+        };
+    }
+
+    /**
+     * Packs tile coordinates into a single cell index as used by the entity lists.
+     * Cells are numbered row by row, like the tiles of a DenseTileStore.
+     */
+    public int cellIndex(int x, int y) {
+        return y * width + x;
+    }
+
+    public int cellX(int cell) {
+        return cell % width;
+    }
+
+    public int cellY(int cell) {
+        return cell / width;
+    }
+
+    /**
+     * Chooses the wall variant of every tile, depending on the walls above and below.
+     * The walls are shifted one row down and up, so only the tiles next to a wall are visited.
+     */
+    private void computeWallVariants() {
+        if (!store.isDense()) {
+            wallVariants = null; // computed when needed
+            return;
+        }
+        wallVariants = new byte[width * height];
+        Bitboard walls = getLayer(WALL);
+        addWallVariant(walls.copy().shift(0, 1), 1); // tiles with a wall above
+        addWallVariant(walls.shift(0, -1), 2); // tiles with a wall below
+    }
+
+    private void addWallVariant(Bitboard tiles, int variant) {
+        for (int y = 0; y < height; y++) {
+            for (int word = 0; word < tiles.getWordsPerRow(); word++) {
+                long bits = tiles.getWord(y, word);
+                while (bits != 0) {
+                    int x = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    wallVariants[y * width + x] |= (byte) variant;
+                    bits &= bits - 1;
+                }
+            }
+        }
+    }
+
+    private void computeSolid() {
+        if (!store.isDense()) {
+            solid = null; // isWall looks at the tiles instead
+            return;
+        }
+        solid = new SolidBitmap(width, height);
+        solid.or(getLayer(WALL)).or(getLayer(EXIT));
+    }
+
+    /**
+     * Collects all tiles of one type, so rules that apply to every tile can run on whole words,
+     * for example floor tiles next to a trap: getLayer(FLOOR).and(getLayer(TRAP).addNeighbours())
+     *
+     * @param tileType
+     * @return a new bitboard with the tiles of the type set
+     */
+    public Bitboard getLayer(int tileType) {
+        return store.getLayer(tileType);
+    }
+
+    /**
+     * Finds every tile the player can walk to from a cell, ignoring traps and enemies
+     *
+     * @param cell cell index of the start
+     * @return a new bitboard with the reachable tiles set, empty if the start is solid
+     */
+    public Bitboard getReachable(int cell) {
+        Bitboard passable = solid != null ? solid.copy() : getLayer(WALL).or(getLayer(EXIT));
+        passable.not();
+        Bitboard reachable = new Bitboard(width, height);
+        reachable.set(cellX(cell), cellY(cell), true);
+        return reachable.fill(passable);
+    }
+
+    /**
+     * Recalculates the wall variant of a single tile. Tiles outside the map are ignored.
+     *
+     * @param x
+     * @param y
+     */
+    private void updateWallVariant(int x, int y) {
+        if (wallVariants == null || !isWithinBounds(x, y)) {
+            return;
+        }
+        wallVariants[y * width + x] = (byte) computeWallVariant(x, y);
+    }
+
+    private int computeWallVariant(int x, int y) {
+        int variant = 0;
+        if (isWallAbove(x, y)) {
+            variant |= 1;
+        }
+        if (isWallBelow(x, y)) {
+            variant |= 2;
+        }
+        return variant;
+    }
+
+    /**
+     * @param x
+     * @param y
+     * @return wall variant of the tile: bit 0 = wall above, bit 1 = wall below
+     */
+    public int getWallVariant(int x, int y) {
+        return wallVariants != null ? wallVariants[y * width + x] : computeWallVariant(x, y);
+    }
+
+    /**
+     * Checks if there is a wall one coordinate up
+     *
+     * @param x
+     * @param y
+     * @return
+     */
+    public boolean isWallAbove(int x, int y) {
+        return y > 0 && store.getTile(x, y - 1) == WALL; // y > 0 no exception
+    }
+
+    /**
+     * Checks if there is a wall one coordinate below
+     *
+     * @param x
+     * @param y
+     * @return
+     */
+    public boolean isWallBelow(int x, int y) {
+        return y < height - 1 && store.getTile(x, y + 1) == WALL; // y < height - 1 no exception
+    }
+
+    /**
+     * Looks up the entry in the index of special tiles
+     *
+     * @return cell index of the entry or -1 if the map has none; of several entries the first one row by row
+     */
+    public int findEntryCell() {
+        int entry = -1;
+        for (int i = 0; i < entryCells.size(); i++) {
+            int cell = entryCells.get(i);
+            if (entry < 0 || cell < entry) {
+                entry = cell;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Finds a tile of a type that overlaps a rectangle, using the index of special tiles
+     *
+     * @param tileType a type with an entity list, see getEntities
+     * @param minX     rectangle in world coordinates, inclusive
+     * @param minY
+     * @param maxX
+     * @param maxY
+     * @return cell index of the first matching tile, or -1 if none overlaps the rectangle
+     */
+    public int findTouching(int tileType, float minX, float minY, float maxX, float maxY) {
+        EntityList cells = getEntities(tileType);
+        for (int i = 0; i < cells.size(); i++) {
+            int cell = cells.get(i);
+            float left = cellX(cell) * TILE_SIZE;
+            float top = cellY(cell) * TILE_SIZE;
+            if (maxX >= left && minX < left + TILE_SIZE && maxY >= top && minY < top + TILE_SIZE) {
+                return cell;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sets a 50% probability to add a new heart coordinate
+     * on the map and places it there
+     */
+    public void placeHeartRandomly(Random random) {
+        if (!heartPlaced && random.nextFloat() < 0.5f) { // 50% probability
+            placeRandomly(HEART, random);
+            heartPlaced = true;
+        }
+    }
+
+    /**
+     * Sets a 10% probability to add a new lemon coordinate
+     * on the map and places it there
+     */
+    public void placeLemonRandomly(Random random) {
+        if (!lemonPlaced && random.nextFloat() < 0.10f) { // 10% probability
+            placeRandomly(LEMON, random);
+            lemonPlaced = true;
+        }
+    }
+
+    /**
+     * Places an object on a random floor tile. The map has to contain at least one floor tile.
+     * Random tiles are tried first; if none of them is floor, the floor tiles are collected in a bitboard.
+     *
+     * @param tileType
+     * @param random
+     * @return cell index of the tile the object was placed on
+     */
+    public int placeRandomly(int tileType, Random random) {
+        for (int attempt = 0; attempt < RANDOM_ATTEMPTS; attempt++) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            if (store.getTile(x, y) == FLOOR) { // Ensure it's placed on a floor tile
+                setTile(x, y, tileType);
+                return cellIndex(x, y);
+            }
+        }
+        // the map is nearly full, pick one of the floor tiles instead of guessing
+        Bitboard floor = getLayer(FLOOR);
+        int floorTiles = floor.count();
+        if (floorTiles == 0) {
+            throw new IllegalStateException("the map has no floor tile left");
+        }
+        int cell = floor.select(random.nextInt(floorTiles));
+        setTile(cellX(cell), cellY(cell), tileType);
+        return cell;
+    }
+
+    /**
+     * Retrieves the tile at the given tile coordinates
+     *
+     * @param x
+     * @param y
+     * @return the tile type, FLOOR outside the map
+     */
+    public int getTile(int x, int y) {
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            return store.getTile(x, y);
+        }
+        return FLOOR;
+    }
+
+    /**
+     * Changes a tile and keeps the entity lists and wall variants in sync.
+     * All changes to the map should go through this method.
+     *
+     * @param x
+     * @param y
+     * @param tileType
+     */
+    public void setTile(int x, int y, int tileType) {
+        int oldType = changeTile(x, y, tileType);
+        for (TileListener listener : listeners) {
+            listener.tileChanged(x, y, oldType, tileType);
+        }
+    }
+
+    /**
+     * Lets an enemy step onto a floor tile, leaving floor behind
+     */
+    private void stepEnemy(int x, int y, int newX, int newY) {
+        changeTile(x, y, FLOOR);
+        changeTile(newX, newY, ENEMY);
+        for (TileListener listener : listeners) {
+            listener.enemyMoved(x, y, newX, newY);
+        }
+    }
+
+    /**
+     * Changes a tile like setTile, without notifying the listeners
+     *
+     * @return the old tile type
+     */
+    private int changeTile(int x, int y, int tileType) {
+        int cell = cellIndex(x, y);
+        int oldType = store.getTile(x, y);
+        store.setTile(x, y, tileType);
+        if (oldType != tileType) {
+            if (!FlowField.isWalkable(oldType) || !FlowField.isWalkable(tileType)) {
+                layoutVersion++;
+            }
+            EntityList oldEntities = getEntities(oldType);
+            if (oldEntities != null) {
+                oldEntities.remove(cell);
+            }
+            EntityList newEntities = getEntities(tileType);
+            if (newEntities != null) {
+                newEntities.add(cell);
+            }
+        }
+        if (solid != null) {
+            solid.set(x, y, isSolid(tileType));
+        }
+        if (oldType == WALL || tileType == WALL) {
+            // walls above and below pick their variant based on this tile
+            updateWallVariant(x, y - 1);
+            updateWallVariant(x, y + 1);
+        }
+        return oldType;
+    }
+
+    /**
+     * Replaces the tile with floor if it has the given type
+     *
+     * @return whether the tile was removed
+     */
+    public boolean remove(int x, int y, int tileType) {
+        if (isWithinBounds(x, y) && store.getTile(x, y) == tileType) {
+            setTile(x, y, FLOOR);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves one enemy one step. An aggressive enemy inside the flow field steps towards its target,
+     * otherwise it moves in a random direction, if the tile there is free.
+     * The EnemyScheduler decides which enemies move when.
+     *
+     * @param cell       tile of the enemy
+     * @param random
+     * @param field      flow field towards the player, already updated; null to move randomly
+     * @param perception decides whether the enemy noticed the player; null if it did
+     * @return the tile of the enemy after the step
+     */
+    public int moveEnemy(int cell, Random random, FlowField field, EnemyPerception perception) {
+        int x = cellX(cell);
+        int y = cellY(cell);
+
+        if (field != null && field.getDistance(x, y) >= 0 && (perception == null || perception.isAggressive(cell))) {
+            // chasing enemies wait if every closer tile is taken
+            int next = field.nextStep(x, y, random.nextInt(4));
+            if (next < 0) {
+                return cell;
+            }
+            stepEnemy(x, y, cellX(next), cellY(next));
+            return next;
+        }
+
+        // Randomly choose a direction to move: 0-up, 1-down, 2-left, 3-right
+        int direction = random.nextInt(4);
+
+        int newX = x;
+        int newY = y;
+
+        switch (direction) {
+            case 0:
+                newY++;
+                break; // up
+            case 1:
+                newY--;
+                break; // down
+            case 2:
+                newX--;
+                break; // left
+            case 3:
+                newX++;
+                break; // right
+        }
+
+        // Check if the new position is within bounds and not a wall or another enemy
+        if (isWithinBounds(newX, newY) && store.getTile(newX, newY) == FLOOR) {
+            stepEnemy(x, y, newX, newY);
+            return cellIndex(newX, newY);
+        }
+        return cell;
+    }
+
+    /**
+     * Calculates the coordinates based off the position of the character
+     *
+     * @param newX used for x character position
+     * @param newY used for y character position
+     * @return whether the coordinate is a wall or an exit
+     */
+    public boolean isWall(float newX, float newY) {
+
+        int leftX = (int) ((newX + 6) / TILE_SIZE);
+        int rightX = (int) ((newX + 50) / TILE_SIZE);
+        int topY = (int) ((newY + 20) / TILE_SIZE);
+        int bottomY = (int) ((newY + 40) / TILE_SIZE);
+
+        // the hitbox is smaller than a tile, so the tiles of its corners are all tiles it touches
+        if (solid != null) {
+            return solid.intersects(leftX, topY, rightX, bottomY);
+        }
+        return isSolid(getTile(leftX, topY)) || isSolid(getTile(rightX, topY))
+                || isSolid(getTile(leftX, bottomY)) || isSolid(getTile(rightX, bottomY));
+    }
+
+    /**
+     * Checks if the given coordinates are within the bounds of the map.
+     *
+     * @param x
+     * @param y
+     * @return
+     */
+    public boolean isWithinBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Calculates coordinates based on character position
+     * and returns true if the coordinates correspond to a trap
+     *
+     * @param x
+     * @param y
+     * @return
+     */
+    public boolean isTrap(float x, float y) {
+        int tileX = (int) (x / TILE_SIZE);
+        int tileY = (int) (y / TILE_SIZE);
+        return getTile(tileX, tileY) == TRAP;
+    }
+
+    /**
+     * Calculates coordinates based on character position
+     * and returns true if the coordinates correspond to an enemy
+     *
+     * @param x
+     * @param y
+     * @return
+     */
+    public boolean isEnemy(float x, float y) {
+        int tileX = (int) (x / TILE_SIZE);
+        int tileY = (int) (y / TILE_SIZE);
+        return getTile(tileX, tileY) == ENEMY;
+    }
+
+    /**
+     * @param tileType
+     * @return whether the player can't walk into the tile (walls and the closed exit)
+     */
+    public static boolean isSolid(int tileType) {
+        return tileType == WALL || tileType == EXIT;
+    }
+
+    /**
+     * @param tileType
+     * @return whether the tile looks the same the whole game (floor, walls, entry and exit)
+     */
+    public static boolean isStaticTile(int tileType) {
+        return tileType == WALL || tileType == ENTRY || tileType == EXIT;
+    }
+
+    public boolean isLoaded() {
+        return store != null;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return the solid bitmap, or null if the store is not dense
+     */
+    public SolidBitmap getSolid() {
+        return solid;
+    }
+
+    public TileStore getStore() {
+        return store;
+    }
+
+    /**
+     * @return a number that changes whenever a tile changes, except for enemies moving over floor,
+     * so caches like the FlowField know when to search again
+     */
+    public long getLayoutVersion() {
+        return layoutVersion;
+    }
+
+    /**
+     * Hints the store that the tiles inside the (inclusive) rectangle will be needed soon
+     */
+    public void prefetch(int minX, int minY, int maxX, int maxY) {
+        store.prefetch(minX, minY, maxX, maxY);
+    }
+
+    /**
+     * Writes changed tiles back to the level file of a paged store
+     *
+     * @throws IOException if the tiles can't be written
+     */
+    public void flush() throws IOException {
+        if (store != null) {
+            store.flush();
+        }
+    }
+
+    /**
+     * Writes changed tiles back and releases the store
+     *
+     * @throws IOException if the tiles can't be written
+     */
+    public void close() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    /**
+     * @return a copy of the tiles indexed by [x][y]; use getTile to look at single tiles
+     */
+    public int[][] getMap() {
+        int[][] map = new int[width][height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                map[x][y] = store.getTile(x, y);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Registers a listener that is notified about new maps and changed tiles, in the order they were added
+     *
+     * @param listener
+     */
+    public void addListener(TileListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    public void removeListener(TileListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                TileListener[] remaining = new TileListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, remaining, 0, i);
+                System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+                listeners = remaining;
+                return;
+            }
+        }
+    }
+}
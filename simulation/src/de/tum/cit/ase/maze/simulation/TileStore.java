@@ -0,0 +1,140 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Storage of the tile types of a map. TileMap reads and writes all tiles through a TileStore,
+ * so the tiles can be kept in a plain array (row by row or in 8x8 blocks), in a hash table of the non-floor
+ * tiles or paged in from a file.
+ * Coordinates passed to getTile and setTile are always inside the map.
+ */
+public interface TileStore {
+    // maps with fewer tiles are always dense, the per-tile caches of TileMap are cheap for them
+    long SPARSE_MIN_TILES = 1 << 20;
+    // maps with a smaller share of non-floor tiles are kept sparse
+    double SPARSE_MAX_DENSITY = 1.0 / 16;
+
+    /**
+     * Creates an empty map (all floor), picking the storage by the share of non-floor tiles.
+     * A sparse table takes about 16 bytes per non-floor tile, a dense map about 2 bytes per tile
+     * including the caches TileMap builds for it.
+     *
+     * @param width
+     * @param height
+     * @param nonFloorTiles expected number of tiles that are not floor
+     * @return a SparseTileStore for large, mostly empty maps, a DenseTileStore otherwise
+     */
+    static TileStore create(int width, int height, long nonFloorTiles) {
+        long tiles = (long) width * height;
+        if (tiles >= SPARSE_MIN_TILES && nonFloorTiles < tiles * SPARSE_MAX_DENSITY) {
+            return new SparseTileStore(width, height, (int) nonFloorTiles);
+        }
+        if (tiles > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("maps are limited to " + Integer.MAX_VALUE + " tiles, cell indices are ints");
+        }
+        byte[] floor = new byte[(int) tiles];
+        Arrays.fill(floor, (byte) TileMap.FLOOR);
+        return new DenseTileStore(width, height, floor);
+    }
+
+    int getWidth();
+
+    int getHeight();
+
+    int getTile(int x, int y);
+
+    void setTile(int x, int y, int tileType);
+
+    /**
+     * @return whether every tile takes memory anyway, so caches with one entry per tile are affordable
+     */
+    default boolean isDense() {
+        return true;
+    }
+
+    /**
+     * Calls the visitor for every tile that is not floor. The map is scanned in 64x64 blocks, so a paged
+     * store loads every chunk once: blocks row by row, and the tiles inside a block row by row.
+     *
+     * @param visitor
+     */
+    default void forEachTile(TileVisitor visitor) {
+        int width = getWidth();
+        int height = getHeight();
+        for (int blockY = 0; blockY < height; blockY += 64) {
+            for (int blockX = 0; blockX < width; blockX += 64) {
+                for (int y = blockY; y < Math.min(blockY + 64, height); y++) {
+                    for (int x = blockX; x < Math.min(blockX + 64, width); x++) {
+                        int tileType = getTile(x, y);
+                        if (tileType != TileMap.FLOOR) {
+                            visitor.visit(x, y, tileType);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Calls the visitor for every tile that is neither floor nor wall, the tiles TileMap keeps entity lists of,
+     * in the same order as forEachTile. The default goes through forEachTile; stores that page their tiles
+     * from a file keep an index of these tiles instead, so loading a map doesn't read every tile.
+     *
+     * @param visitor
+     */
+    default void forEachEntity(TileVisitor visitor) {
+        forEachTile((x, y, tileType) -> {
+            if (tileType != TileMap.WALL) {
+                visitor.visit(x, y, tileType);
+            }
+        });
+    }
+
+    /**
+     * Collects all tiles of one type into a bitboard. The default goes through forEachTile.
+     *
+     * @param tileType
+     * @return a new bitboard with the tiles of the type set
+     */
+    default Bitboard getLayer(int tileType) {
+        Bitboard layer = new Bitboard(getWidth(), getHeight());
+        if (tileType == TileMap.FLOOR) {
+            forEachTile((x, y, type) -> layer.set(x, y, true));
+            return layer.not();
+        }
+        forEachTile((x, y, type) -> {
+            if (type == tileType) {
+                layer.set(x, y, true);
+            }
+        });
+        return layer;
+    }
+
+    /**
+     * Hints that the tiles inside the (inclusive) rectangle will be needed soon
+     */
+    default void prefetch(int minX, int minY, int maxX, int maxY) {
+    }
+
+    /**
+     * Writes changed tiles back to where they were loaded from
+     *
+     * @throws IOException if the tiles can't be written
+     */
+    default void flush() throws IOException {
+    }
+
+    /**
+     * Writes changed tiles back and releases files and threads of the store
+     *
+     * @throws IOException if the tiles can't be written
+     */
+    default void close() throws IOException {
+    }
+
+    @FunctionalInterface
+    interface TileVisitor {
+        void visit(int x, int y, int tileType);
+    }
+}
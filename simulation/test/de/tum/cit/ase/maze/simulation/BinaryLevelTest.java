@@ -0,0 +1,96 @@
+package de.tum.cit.ase.maze.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryLevelTest {
+
+    private static int[][] sampleMap() {
+        int[][] map = new int[5][3];
+        for (int x = 0; x < 5; x++) {
+            for (int y = 0; y < 3; y++) {
+                map[x][y] = TileMap.FLOOR;
+            }
+        }
+        map[0][0] = TileMap.WALL;
+        map[4][0] = TileMap.EXIT;
+        map[1][2] = TileMap.ENTRY;
+        map[3][1] = TileMap.KEY;
+        map[2][2] = TileMap.ENEMY;
+        return map;
+    }
+
+    private static void assertSameTiles(int[][] expected, TileStore store) {
+        assertEquals(expected.length, store.getWidth());
+        assertEquals(expected[0].length, store.getHeight());
+        for (int x = 0; x < expected.length; x++) {
+            for (int y = 0; y < expected[0].length; y++) {
+                assertEquals(expected[x][y], store.getTile(x, y), "tile " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void bufferRoundTrip() throws IOException {
+        int[][] map = sampleMap();
+        assertSameTiles(map, BinaryLevel.read(BinaryLevel.toBuffer(map)));
+    }
+
+    @Test
+    void fileRoundTrip() throws IOException {
+        int[][] map = sampleMap();
+        Path file = Files.createTempFile("level", BinaryLevel.EXTENSION);
+        try {
+            BinaryLevel.write(map, file);
+            assertSameTiles(map, BinaryLevel.read(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void tilesAreStoredRowByRow() {
+        ByteBuffer buffer = BinaryLevel.toBuffer(sampleMap());
+        buffer.position(16);
+        assertEquals(TileMap.WALL, buffer.get()); // 0,0
+        buffer.position(16 + 4);
+        assertEquals(TileMap.EXIT, buffer.get()); // 4,0
+        buffer.position(16 + 2 * 5 + 1);
+        assertEquals(TileMap.ENTRY, buffer.get()); // 1,2
+    }
+
+    @Test
+    void rejectsTruncatedLevel() {
+        ByteBuffer buffer = BinaryLevel.toBuffer(sampleMap());
+        buffer.limit(buffer.limit() - 1);
+        assertThrows(IOException.class, () -> BinaryLevel.read(buffer));
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        ByteBuffer buffer = ByteBuffer.wrap("0,0=1\n1,0=2\n2,0=0\n".getBytes());
+        assertThrows(IOException.class, () -> BinaryLevel.read(buffer));
+    }
+
+    @Test
+    void loadsIntoTileMap() throws IOException {
+        int[][] map = sampleMap();
+        Path file = Files.createTempFile("level", BinaryLevel.EXTENSION);
+        try {
+            BinaryLevel.write(map, file);
+            TileMap tileMap = new TileMap();
+            tileMap.loadBinary(file);
+            assertSameTiles(map, tileMap.getStore());
+            assertEquals(1, tileMap.getEntities(TileMap.KEY).size());
+            assertEquals(1, tileMap.getEntities(TileMap.ENEMY).size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package de.tum.cit.ase.maze.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitboardTest {
+    // none of them is a multiple of 64, except 128, so the last word of a row is only partly inside the map
+    private static final int[] WIDTHS = {1, 5, 63, 65, 100, 128, 130, 200};
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {1, -1, 0, 0};
+
+    private static boolean[][] randomGrid(int width, int height, int percent, Random random) {
+        boolean[][] grid = new boolean[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                grid[x][y] = random.nextInt(100) < percent;
+            }
+        }
+        return grid;
+    }
+
+    private static Bitboard toBitboard(boolean[][] grid) {
+        Bitboard board = new Bitboard(grid.length, grid[0].length);
+        for (int x = 0; x < grid.length; x++) {
+            for (int y = 0; y < grid[0].length; y++) {
+                board.set(x, y, grid[x][y]);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Checks every tile, and that no bit past the width of a row is set
+     */
+    private static void assertSameTiles(boolean[][] expected, Bitboard actual, String message) {
+        int count = 0;
+        for (int x = 0; x < expected.length; x++) {
+            for (int y = 0; y < expected[0].length; y++) {
+                assertEquals(expected[x][y], actual.get(x, y), message + " at " + x + "," + y);
+                count += expected[x][y] ? 1 : 0;
+            }
+        }
+        assertEquals(count, actual.count(), message);
+        long inside = -1L >>> (63 - ((expected.length - 1) & 63));
+        for (int y = 0; y < expected[0].length; y++) {
+            assertEquals(0L, actual.getWord(y, actual.getWordsPerRow() - 1) & ~inside, message + " row " + y);
+        }
+    }
+
+    @Test
+    void shiftMatchesGrid() {
+        Random random = new Random(1);
+        for (int width : WIDTHS) {
+            int height = 1 + random.nextInt(12);
+            boolean[][] grid = randomGrid(width, height, 50, random);
+            int[] shifts = {0, 1, -1, 2, -2, 63, -63, 64, -64, 65, -65, width - 1, 1 - width, width, -width};
+            for (int dx : shifts) {
+                for (int dy : new int[]{0, 1, -1, height - 1, -height, height}) {
+                    boolean[][] expected = new boolean[width][height];
+                    for (int x = 0; x < width; x++) {
+                        for (int y = 0; y < height; y++) {
+                            int fromX = x - dx;
+                            int fromY = y - dy;
+                            expected[x][y] = fromX >= 0 && fromX < width && fromY >= 0 && fromY < height && grid[fromX][fromY];
+                        }
+                    }
+                    assertSameTiles(expected, toBitboard(grid).shift(dx, dy), width + "x" + height + " shift " + dx + "," + dy);
+                }
+            }
+        }
+    }
+
+    @Test
+    void notAndCountMatchGrid() {
+        Random random = new Random(2);
+        for (int width : WIDTHS) {
+            int height = 1 + random.nextInt(12);
+            boolean[][] grid = randomGrid(width, height, 30, random);
+            boolean[][] flipped = new boolean[width][height];
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    flipped[x][y] = !grid[x][y];
+                }
+            }
+            Bitboard board = toBitboard(grid);
+            assertSameTiles(flipped, board.not(), "not " + width);
+            assertSameTiles(grid, board.not(), "not not " + width);
+            assertSameTiles(flipped, new Bitboard(width, height).not().andNot(toBitboard(grid)), "andNot " + width);
+            assertEquals(width * height, new Bitboard(width, height).not().count());
+            assertTrue(new Bitboard(width, height).isEmpty());
+        }
+    }
+
+    @Test
+    void selectMatchesGrid() {
+        Random random = new Random(3);
+        for (int width : WIDTHS) {
+            int height = 1 + random.nextInt(12);
+            boolean[][] grid = randomGrid(width, height, 20, random);
+            Bitboard board = toBitboard(grid);
+            // the n-th set tile counted row by row
+            int n = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (grid[x][y]) {
+                        assertEquals(y * width + x, board.select(n), width + "x" + height + " tile " + n);
+                        n++;
+                    }
+                }
+            }
+            assertEquals(-1, board.select(n));
+            assertEquals(n == 0 ? -1 : board.select(0), board.nextSetCell(0));
+        }
+    }
+
+    @Test
+    void fillMatchesBreadthFirstSearch() {
+        Random random = new Random(4);
+        for (int width : WIDTHS) {
+            for (int round = 0; round < 5; round++) {
+                int height = 1 + random.nextInt(40);
+                boolean[][] passable = randomGrid(width, height, 50 + 10 * round, random);
+                boolean[][] seeds = randomGrid(width, height, 1, random);
+                seeds[random.nextInt(width)][random.nextInt(height)] = true;
+
+                boolean[][] expected = new boolean[width][height];
+                ArrayDeque<int[]> queue = new ArrayDeque<>();
+                for (int x = 0; x < width; x++) {
+                    for (int y = 0; y < height; y++) {
+                        if (seeds[x][y] && passable[x][y]) {
+                            expected[x][y] = true;
+                            queue.add(new int[]{x, y});
+                        }
+                    }
+                }
+                while (!queue.isEmpty()) {
+                    int[] tile = queue.poll();
+                    for (int direction = 0; direction < 4; direction++) {
+                        int x = tile[0] + DX[direction];
+                        int y = tile[1] + DY[direction];
+                        if (x >= 0 && x < width && y >= 0 && y < height && passable[x][y] && !expected[x][y]) {
+                            expected[x][y] = true;
+                            queue.add(new int[]{x, y});
+                        }
+                    }
+                }
+                assertSameTiles(expected, toBitboard(seeds).fill(toBitboard(passable)), width + "x" + height);
+            }
+        }
+    }
+
+    @Test
+    void fillThroughWindingCorridor() {
+        // a corridor that runs back and forth across all words of a row, only reachable from its start
+        int width = 130;
+        int height = 21;
+        boolean[][] passable = new boolean[width][height];
+        for (int y = 0; y < height; y += 2) {
+            for (int x = 0; x < width; x++) {
+                passable[x][y] = true;
+            }
+            if (y + 1 < height) {
+                passable[y % 4 == 0 ? width - 1 : 0][y + 1] = true;
+            }
+        }
+        Bitboard seeds = new Bitboard(width, height);
+        seeds.set(0, 0, true);
+        assertSameTiles(passable, seeds.fill(toBitboard(passable)), "corridor");
+    }
+}
@@ -0,0 +1,131 @@
+package de.tum.cit.ase.maze.simulation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedTileStoreTest {
+    private static final int[] ENTITY_TYPES = {
+            TileMap.ENTRY, TileMap.EXIT, TileMap.KEY, TileMap.TRAP, TileMap.ENEMY, TileMap.HEART, TileMap.LEMON
+    };
+
+    private int[][] map;
+    private Path file;
+    private Path index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        map = TestMaps.generate(200, 150, 31).getMap();
+        Path directory = Files.createTempDirectory("chunks");
+        directory.toFile().deleteOnExit();
+        file = directory.resolve("level" + ChunkedTileStore.EXTENSION);
+        index = directory.resolve("level" + ChunkedTileStore.EXTENSION + ChunkedTileStore.INDEX_EXTENSION);
+        file.toFile().deleteOnExit();
+        index.toFile().deleteOnExit();
+        ChunkedTileStore.write(map, file);
+    }
+
+    /**
+     * Checks that the entity lists of the map hold the same cells as a map loaded into memory
+     */
+    private static void assertSameEntities(TileMap expected, TileMap actual) {
+        for (int tileType : ENTITY_TYPES) {
+            assertArrayEquals(sorted(expected.getEntities(tileType)), sorted(actual.getEntities(tileType)),
+                    "tile type " + tileType);
+        }
+    }
+
+    private static int[] sorted(EntityList entities) {
+        int[] cells = Arrays.copyOf(entities.copyTo(new int[0]), entities.size());
+        Arrays.sort(cells);
+        return cells;
+    }
+
+    private static TileMap inMemory(int[][] map) {
+        TileMap tiles = new TileMap();
+        tiles.setTiles(map);
+        return tiles;
+    }
+
+    @Test
+    void writeCreatesIndex() {
+        assertTrue(Files.isRegularFile(index));
+    }
+
+    @Test
+    void loadingReadsNoChunk() throws IOException {
+        ChunkedTileStore store = ChunkedTileStore.open(file, ChunkedTileStore.DEFAULT_MEMORY_BUDGET);
+        TileMap tiles = new TileMap();
+        tiles.setStore(store);
+        assertEquals(0, store.getChunksLoaded());
+        assertSameEntities(inMemory(map), tiles);
+        store.close();
+    }
+
+    @Test
+    void changesAreKeptInIndex() throws IOException {
+        TileMap tiles = new TileMap();
+        tiles.setStore(ChunkedTileStore.open(file, ChunkedTileStore.DEFAULT_MEMORY_BUDGET));
+        int key = tiles.getEntities(TileMap.KEY).get(0);
+        tiles.remove(tiles.cellX(key), tiles.cellY(key), TileMap.KEY);
+        tiles.setTile(2, 2, TileMap.LEMON);
+        tiles.setTile(3, 3, TileMap.WALL);
+        int[][] changed = tiles.getMap();
+        tiles.getStore().close();
+
+        ChunkedTileStore store = ChunkedTileStore.open(file, ChunkedTileStore.DEFAULT_MEMORY_BUDGET);
+        TileMap reopened = new TileMap();
+        reopened.setStore(store);
+        assertEquals(0, store.getChunksLoaded());
+        assertSameEntities(inMemory(changed), reopened);
+        store.close();
+    }
+
+    @Test
+    void missingIndexIsBuilt() throws IOException {
+        Files.delete(index);
+        ChunkedTileStore store = ChunkedTileStore.open(file, ChunkedTileStore.DEFAULT_MEMORY_BUDGET);
+        TileMap tiles = new TileMap();
+        tiles.setStore(store);
+        assertTrue(store.getChunksLoaded() > 0);
+        assertSameEntities(inMemory(map), tiles);
+        store.close();
+        assertTrue(Files.isRegularFile(index));
+    }
+
+    @Test
+    void outdatedIndexIsBuilt() throws IOException {
+        // the chunks were written after the index, for example by a process that was killed before its flush
+        Files.setLastModifiedTime(index, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() - 10_000));
+        ChunkedTileStore store = ChunkedTileStore.open(file, ChunkedTileStore.DEFAULT_MEMORY_BUDGET);
+        TileMap tiles = new TileMap();
+        tiles.setStore(store);
+        assertTrue(store.getChunksLoaded() > 0);
+        assertSameEntities(inMemory(map), tiles);
+        store.close();
+    }
+
+    @Test
+    void indexOfOtherSizeIsBuilt() throws IOException {
+        Path other = file.resolveSibling("other" + ChunkedTileStore.EXTENSION);
+        Path otherIndex = file.resolveSibling("other" + ChunkedTileStore.EXTENSION + ChunkedTileStore.INDEX_EXTENSION);
+        other.toFile().deleteOnExit();
+        otherIndex.toFile().deleteOnExit();
+        ChunkedTileStore.write(new int[10][10], other);
+        Files.copy(otherIndex, index, StandardCopyOption.REPLACE_EXISTING);
+
+        ChunkedTileStore store = ChunkedTileStore.open(file, ChunkedTileStore.DEFAULT_MEMORY_BUDGET);
+        TileMap tiles = new TileMap();
+        tiles.setStore(store);
+        assertSameEntities(inMemory(map), tiles);
+        store.close();
+    }
+}
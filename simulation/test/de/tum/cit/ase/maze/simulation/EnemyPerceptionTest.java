@@ -0,0 +1,88 @@
+package de.tum.cit.ase.maze.simulation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnemyPerceptionTest {
+    private TileMap tiles;
+    private EnemyPerception perception;
+
+    /**
+     * An empty room with one enemy at 5,5
+     */
+    @BeforeEach
+    void setUp() {
+        int[][] map = new int[20][20];
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 20; y++) {
+                boolean border = x == 0 || y == 0 || x == 19 || y == 19;
+                map[x][y] = border ? TileMap.WALL : TileMap.FLOOR;
+            }
+        }
+        map[5][5] = TileMap.ENEMY;
+        tiles = new TileMap();
+        tiles.setTiles(map);
+        perception = new EnemyPerception(tiles, EnemyPerception.DEFAULT_MIN_RADIUS,
+                EnemyPerception.DEFAULT_MAX_RADIUS, EnemyPerception.DEFAULT_RAY_BUDGET);
+    }
+
+    /**
+     * Moves the enemy at the cell one step in a random direction
+     *
+     * @return the new cell of the enemy
+     */
+    private int step(int cell, Random random) {
+        int next;
+        do {
+            next = tiles.moveEnemy(cell, random, null, null);
+        } while (next == cell);
+        return next;
+    }
+
+    @Test
+    void stateMovesWithEnemy() {
+        perception.setSightRadius(5, 5, 3);
+        perception.update(6, 5);
+        assertTrue(perception.isAggressive(tiles.cellIndex(5, 5)));
+
+        int cell = step(tiles.cellIndex(5, 5), new Random(1));
+        assertEquals(3, perception.getSightRadius(tiles.cellX(cell), tiles.cellY(cell)));
+        assertEquals(0, perception.getSightRadius(5, 5));
+        assertTrue(perception.isAggressive(cell));
+        assertEquals(1, perception.countAggressive());
+    }
+
+    @Test
+    void killedEnemyLeavesNoState() {
+        perception.setSightRadius(5, 5, 1);
+        perception.update(6, 5);
+        assertTrue(perception.isAggressive(tiles.cellIndex(5, 5)));
+
+        // killed by an attack, then a new enemy appears without a step in between
+        assertTrue(tiles.remove(5, 5, TileMap.ENEMY));
+        tiles.setTile(15, 15, TileMap.ENEMY);
+        int cell = tiles.cellIndex(15, 15);
+        assertFalse(perception.isAggressive(cell));
+        assertEquals(0, perception.countAggressive());
+        int radius = perception.getSightRadius(15, 15);
+        assertTrue(radius >= EnemyPerception.DEFAULT_MIN_RADIUS && radius <= EnemyPerception.DEFAULT_MAX_RADIUS);
+    }
+
+    @Test
+    void enemyOutOfSightForgetsPlayer() {
+        perception.setSightRadius(5, 5, 2);
+        perception.update(7, 5);
+        int cell = tiles.cellIndex(5, 5);
+        assertTrue(perception.isAggressive(cell));
+
+        tiles.setTile(6, 5, TileMap.WALL);
+        for (int move = 1; move <= EnemyPerception.AGGRO_MEMORY; move++) {
+            perception.update(7, 5);
+            assertEquals(move < EnemyPerception.AGGRO_MEMORY, perception.isAggressive(cell), "move " + move);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package de.tum.cit.ase.maze.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnemySchedulerTest {
+
+    /**
+     * @return an empty room with walls around it and one enemy
+     */
+    private static TileMap room(int size, int enemyX, int enemyY) {
+        int[][] map = new int[size][size];
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                boolean border = x == 0 || y == 0 || x == size - 1 || y == size - 1;
+                map[x][y] = border ? TileMap.WALL : TileMap.FLOOR;
+            }
+        }
+        map[enemyX][enemyY] = TileMap.ENEMY;
+        TileMap tiles = new TileMap();
+        tiles.setTiles(map);
+        return tiles;
+    }
+
+    private static int distance(TileMap tiles, int from, int to) {
+        return Math.abs(tiles.cellX(from) - tiles.cellX(to)) + Math.abs(tiles.cellY(from) - tiles.cellY(to));
+    }
+
+    @Test
+    void enemyCountStaysTheSame() {
+        TileMap tiles = TestMaps.generate(400, 300, 21);
+        FlowField field = new FlowField(tiles, FlowField.DEFAULT_RADIUS);
+        EnemyPerception perception = new EnemyPerception(tiles, EnemyPerception.DEFAULT_MIN_RADIUS,
+                EnemyPerception.DEFAULT_MAX_RADIUS, EnemyPerception.DEFAULT_RAY_BUDGET);
+        EnemyScheduler scheduler = new EnemyScheduler(tiles, EnemyScheduler.DEFAULT_ACTIVE_RADIUS,
+                EnemyScheduler.DEFAULT_REDUCED_RADIUS);
+        int enemies = tiles.getEntities(TileMap.ENEMY).size();
+        Random random = new Random(22);
+        int playerX = 1;
+        int playerY = 1;
+        for (int move = 0; move < 300; move++) {
+            // walk along the diagonal, sometimes jump far, so sleeping regions wake up
+            if (move % 50 == 49) {
+                playerX = 1 + random.nextInt(tiles.getWidth() - 2);
+                playerY = 1 + random.nextInt(tiles.getHeight() - 2);
+            } else {
+                playerX = Math.min(playerX + 1, tiles.getWidth() - 2);
+                playerY = Math.min(playerY + 1, tiles.getHeight() - 2);
+            }
+            field.update(playerX, playerY);
+            perception.update(playerX, playerY);
+            scheduler.moveEnemies(playerX, playerY, random, field, perception);
+
+            assertEquals(enemies, tiles.getEntities(TileMap.ENEMY).size(), "move " + move);
+            assertEquals(enemies, tiles.getLayer(TileMap.ENEMY).count(), "move " + move);
+            assertEquals(enemies, scheduler.getActiveCount() + scheduler.getReducedCount() + scheduler.getSleepingCount());
+            assertTrue(scheduler.getSleepingCount() >= 0);
+        }
+        assertTrue(scheduler.getCatchUpSteps() > 0);
+    }
+
+    @Test
+    void activeEnemyMovesOneStep() {
+        TileMap tiles = room(64, 30, 30);
+        EnemyScheduler scheduler = new EnemyScheduler(tiles, 64, 64);
+        Random random = new Random(23);
+        int cell = tiles.getEntities(TileMap.ENEMY).get(0);
+        for (int move = 0; move < 100; move++) {
+            scheduler.moveEnemies(30, 30, random, null, null);
+            int next = tiles.getEntities(TileMap.ENEMY).get(0);
+            assertTrue(distance(tiles, cell, next) <= 1);
+            cell = next;
+        }
+        assertEquals(1, scheduler.getActiveCount());
+    }
+
+    @Test
+    void sleepingEnemyCatchesUpOnce() {
+        TileMap tiles = room(512, 400, 400);
+        EnemyScheduler scheduler = new EnemyScheduler(tiles, 16, 64);
+        Random random = new Random(24);
+        int cell = tiles.getEntities(TileMap.ENEMY).get(0);
+        for (int move = 0; move < 200; move++) {
+            scheduler.moveEnemies(10, 10, random, null, null);
+        }
+        assertEquals(cell, tiles.getEntities(TileMap.ENEMY).get(0));
+        assertEquals(1, scheduler.getSleepingCount());
+
+        // next to the enemy, its region is active and catches up at once
+        scheduler.moveEnemies(400, 400, random, null, null);
+        int next = tiles.getEntities(TileMap.ENEMY).get(0);
+        assertTrue(distance(tiles, cell, next) <= EnemyScheduler.CATCH_UP_STEPS + 1);
+        assertEquals(EnemyScheduler.CATCH_UP_STEPS, scheduler.getCatchUpSteps());
+        assertEquals(1, scheduler.getActiveCount());
+
+        scheduler.moveEnemies(400, 400, random, null, null);
+        assertEquals(EnemyScheduler.CATCH_UP_STEPS, scheduler.getCatchUpSteps());
+    }
+}
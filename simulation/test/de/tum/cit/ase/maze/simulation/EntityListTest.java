@@ -0,0 +1,123 @@
+package de.tum.cit.ase.maze.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityListTest {
+    // slots of the table a new list starts with
+    private static final int TABLE_SIZE = 32;
+
+    /**
+     * Checks that the list holds exactly the cells of the set, each once
+     */
+    private static void assertSameCells(Set<Integer> expected, EntityList actual) {
+        assertEquals(expected.size(), actual.size());
+        Set<Integer> seen = new HashSet<>();
+        for (int i = 0; i < actual.size(); i++) {
+            assertTrue(seen.add(actual.get(i)), "cell " + actual.get(i) + " twice");
+        }
+        assertEquals(expected, seen);
+        for (int cell : expected) {
+            assertTrue(actual.contains(cell));
+        }
+    }
+
+    /**
+     * Adds, removes and looks up random cells and compares the list with a HashSet after every step
+     */
+    private static void checkAgainstSet(List<Integer> candidates, int steps, Random random) {
+        EntityList list = new EntityList();
+        Set<Integer> expected = new HashSet<>();
+        for (int step = 0; step < steps; step++) {
+            int cell = candidates.get(random.nextInt(candidates.size()));
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    list.add(cell);
+                    expected.add(cell);
+                }
+                case 1 -> assertEquals(expected.remove(cell), list.remove(cell), "step " + step);
+                default -> assertEquals(expected.contains(cell), list.contains(cell), "step " + step);
+            }
+            assertSameCells(expected, list);
+        }
+    }
+
+    /**
+     * @return cells whose home slot in the first table is one of the given slots
+     */
+    private static List<Integer> cellsWithHome(int count, int... slots) {
+        List<Integer> cells = new ArrayList<>();
+        for (int cell = 0; cells.size() < count; cell++) {
+            int home = EntityList.hash(cell) & (TABLE_SIZE - 1);
+            for (int slot : slots) {
+                if (home == slot) {
+                    cells.add(cell);
+                }
+            }
+        }
+        return cells;
+    }
+
+    @Test
+    void randomCellsMatchSet() {
+        Random random = new Random(1);
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            candidates.add(random.nextInt(100_000));
+        }
+        checkAgainstSet(candidates, 20_000, random);
+    }
+
+    @Test
+    void clusteredCellsMatchSet() {
+        // at most 16 cells at once, so the table keeps its first size and all of them probe into each other
+        Random random = new Random(2);
+        checkAgainstSet(cellsWithHome(16, 5, 6), 5_000, random);
+    }
+
+    @Test
+    void probeRunsWrappingAroundMatchSet() {
+        // cells at home in the last slots run over into the first ones
+        Random random = new Random(3);
+        checkAgainstSet(cellsWithHome(16, TABLE_SIZE - 2, TABLE_SIZE - 1, 0), 5_000, random);
+    }
+
+    @Test
+    void removeFromWrappedRun() {
+        List<Integer> cells = cellsWithHome(8, TABLE_SIZE - 1);
+        EntityList list = new EntityList();
+        Set<Integer> expected = new HashSet<>(cells);
+        cells.forEach(list::add);
+        // removing the first cells of the run moves the ones behind it back across the end of the table
+        for (int cell : cells) {
+            assertTrue(list.remove(cell));
+            assertFalse(list.remove(cell));
+            expected.remove(cell);
+            assertSameCells(expected, list);
+        }
+    }
+
+    @Test
+    void growingKeepsCells() {
+        EntityList list = new EntityList();
+        Set<Integer> expected = new HashSet<>();
+        for (int cell = 0; cell < 10_000; cell += 3) {
+            list.add(cell);
+            list.add(cell);
+            expected.add(cell);
+        }
+        assertSameCells(expected, list);
+        list.clear();
+        assertEquals(0, list.size());
+        assertFalse(list.contains(3));
+        list.add(3);
+        assertSameCells(Set.of(3), list);
+    }
+}
@@ -0,0 +1,120 @@
+package de.tum.cit.ase.maze.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GuidancePlannerTest {
+
+    private static int[] path(GuidancePlanner planner) {
+        int[] path = new int[planner.getPathLength()];
+        for (int i = 0; i < path.length; i++) {
+            path[i] = planner.getPathCell(i);
+        }
+        return path;
+    }
+
+    /**
+     * Walks along the path while walls appear and disappear and keys are removed,
+     * the repaired path always has to be as long as a new search
+     */
+    private static void checkAgainstSearch(long budgetNanos) {
+        TileMap tiles = TestMaps.generate(64, 48, 3);
+        GuidancePlanner planner = new GuidancePlanner(tiles);
+        Random random = new Random(4);
+        int start = tiles.cellIndex(1, 1);
+        for (int step = 0; step < 300; step++) {
+            int goalType = step < 150 ? TileMap.KEY : TileMap.EXIT;
+            planner.setGoalType(goalType);
+            for (int i = 0; i < 3; i++) {
+                int x = 1 + random.nextInt(tiles.getWidth() - 2);
+                int y = 1 + random.nextInt(tiles.getHeight() - 2);
+                if (tiles.getTile(x, y) == TileMap.WALL) {
+                    tiles.setTile(x, y, TileMap.FLOOR);
+                } else if (tiles.getTile(x, y) == TileMap.FLOOR && tiles.cellIndex(x, y) != start) {
+                    tiles.setTile(x, y, TileMap.WALL);
+                }
+            }
+            EntityList keys = tiles.getEntities(TileMap.KEY);
+            if (step % 20 == 10 && keys.size() > 1) {
+                int key = keys.get(random.nextInt(keys.size()));
+                tiles.setTile(tiles.cellX(key), tiles.cellY(key), TileMap.FLOOR);
+            }
+
+            int updates = 0;
+            while (!planner.update(tiles.cellX(start), tiles.cellY(start), budgetNanos)) {
+                assertTrue(++updates < 100_000, "the search doesn't finish");
+            }
+            int[] path = path(planner);
+            assertEquals(TestMaps.distance(tiles, start, goalType, -1), path.length - 1, "step " + step);
+            assertTrue(TestMaps.isConnected(tiles, path, path.length), "step " + step);
+            if (path.length > 0) {
+                assertEquals(start, path[0]);
+                int end = path[path.length - 1];
+                assertEquals(goalType, tiles.getTile(tiles.cellX(end), tiles.cellY(end)));
+            }
+
+            // follow the path, or jump somewhere else if there is none
+            if (path.length > 3) {
+                start = path[1 + random.nextInt(2)];
+            } else {
+                Bitboard floor = tiles.getLayer(TileMap.FLOOR);
+                start = floor.select(random.nextInt(floor.count()));
+            }
+        }
+    }
+
+    @Test
+    void sameLengthAsSearchAfterTileChanges() {
+        checkAgainstSearch(Long.MAX_VALUE);
+    }
+
+    @Test
+    void sameLengthAsSearchWithSmallBudget() {
+        checkAgainstSearch(0);
+    }
+
+    @Test
+    void noPathWithoutGoals() {
+        TileMap tiles = TestMaps.generate(16, 16, 1);
+        GuidancePlanner planner = new GuidancePlanner(tiles);
+        planner.setGoalType(TileMap.LEMON);
+        assertTrue(planner.update(1, 1, Long.MAX_VALUE));
+        assertEquals(0, planner.getPathLength());
+    }
+
+    @Test
+    void sparseMapsAreNotPlanned() {
+        TileMap tiles = new TileMap();
+        tiles.setStore(new SparseTileStore(40_000, 40_000, 16));
+        tiles.setTile(5, 1, TileMap.KEY);
+        GuidancePlanner planner = new GuidancePlanner(tiles);
+        planner.setGoalType(TileMap.KEY);
+        assertFalse(planner.isSupported());
+        assertFalse(planner.update(1, 1, Long.MAX_VALUE));
+        assertEquals(0, planner.getPathLength());
+    }
+
+    @Test
+    void largeDenseMapsAreNotPlanned() {
+        TileMap tiles = new TileMap();
+        int width = 2048;
+        int height = GuidancePlanner.MAX_TILES / width + 1;
+        byte[] map = new byte[width * height];
+        Arrays.fill(map, (byte) TileMap.FLOOR);
+        map[height / 2 * width + 5] = TileMap.KEY;
+        tiles.setTiles(width, height, map);
+        assertTrue(tiles.getStore().isDense());
+        GuidancePlanner planner = new GuidancePlanner(tiles);
+        planner.setGoalType(TileMap.KEY);
+        assertFalse(planner.isSupported());
+        assertFalse(planner.update(1, 1, Long.MAX_VALUE));
+        assertEquals(0, planner.getPathLength());
+
+        tiles.setTiles(new int[64][64]);
+        assertTrue(planner.isSupported());
+    }
+}
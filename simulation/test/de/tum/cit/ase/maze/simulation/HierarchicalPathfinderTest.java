@@ -0,0 +1,134 @@
+package de.tum.cit.ase.maze.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalPathfinderTest {
+    private static final int CLUSTER_SIZE = 16;
+
+    // steps of all shortest paths and of all paths found by checkPath
+    private long shortestSteps = 0;
+    private long foundSteps = 0;
+
+    private static int randomFloor(TileMap tiles, Random random) {
+        Bitboard floor = tiles.getLayer(TileMap.FLOOR);
+        return floor.select(random.nextInt(floor.count()));
+    }
+
+    /**
+     * Checks a path against a breadth-first search: it has to exist exactly when the search reaches the goal,
+     * be connected, and be at most a little longer than the shortest one
+     */
+    private void checkPath(TileMap tiles, HierarchicalPathfinder pathfinder, int start, int goal) {
+        int shortest = TestMaps.distance(tiles, start, TestMaps.NO_TYPE, goal);
+        int[] path = pathfinder.findPath(start, goal);
+        if (shortest < 0) {
+            assertNull(path);
+            return;
+        }
+        assertNotNull(path);
+        assertEquals(start, path[0]);
+        assertEquals(goal, path[path.length - 1]);
+        assertTrue(TestMaps.isConnected(tiles, path, path.length));
+        int steps = path.length - 1;
+        assertTrue(steps >= shortest);
+        assertTrue(steps <= shortest + shortest / 10 + 2 * CLUSTER_SIZE, steps + " steps instead of " + shortest);
+        shortestSteps += shortest;
+        foundSteps += steps;
+    }
+
+    @Test
+    void pathsCloseToShortest() {
+        TileMap tiles = TestMaps.generate(160, 120, 8);
+        HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(tiles, CLUSTER_SIZE);
+        Random random = new Random(9);
+        for (int i = 0; i < 300; i++) {
+            checkPath(tiles, pathfinder, randomFloor(tiles, random), randomFloor(tiles, random));
+        }
+        // the Manhattan distance never overestimates, only the nodes of the openings make paths longer
+        assertTrue(foundSteps <= shortestSteps * 103 / 100, foundSteps + " steps instead of " + shortestSteps);
+    }
+
+    @Test
+    void pathsEndOnSolidGoal() {
+        TileMap tiles = TestMaps.generate(160, 120, 8);
+        HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(tiles, CLUSTER_SIZE);
+        int exit = tiles.getEntities(TileMap.EXIT).get(0);
+        Random random = new Random(10);
+        for (int i = 0; i < 50; i++) {
+            checkPath(tiles, pathfinder, randomFloor(tiles, random), exit);
+        }
+    }
+
+    @Test
+    void pathsCloseToShortestAfterTileChanges() {
+        TileMap tiles = TestMaps.generate(128, 128, 11);
+        HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(tiles, CLUSTER_SIZE);
+        Random random = new Random(12);
+        for (int step = 0; step < 200; step++) {
+            for (int i = 0; i < 5; i++) {
+                int x = 1 + random.nextInt(tiles.getWidth() - 2);
+                int y = 1 + random.nextInt(tiles.getHeight() - 2);
+                if (tiles.getTile(x, y) == TileMap.WALL) {
+                    tiles.setTile(x, y, TileMap.FLOOR);
+                } else if (tiles.getTile(x, y) == TileMap.FLOOR) {
+                    tiles.setTile(x, y, TileMap.WALL);
+                }
+            }
+            checkPath(tiles, pathfinder, randomFloor(tiles, random), randomFloor(tiles, random));
+        }
+    }
+
+    @Test
+    void weightedHeuristicFindsPaths() {
+        TileMap tiles = TestMaps.generate(160, 120, 8);
+        HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(tiles, CLUSTER_SIZE, 125);
+        Random random = new Random(9);
+        for (int i = 0; i < 100; i++) {
+            checkPath(tiles, pathfinder, randomFloor(tiles, random), randomFloor(tiles, random));
+        }
+    }
+
+    @Test
+    void graphBuiltWhenMapLoaded() {
+        TileMap tiles = TestMaps.generate(64, 64, 13);
+        HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(tiles, CLUSTER_SIZE);
+        assertFalse(pathfinder.isBuilt());
+        assertTrue(pathfinder.build(Long.MAX_VALUE));
+        assertEquals(16, pathfinder.getRebuiltClusters());
+        tiles.setTiles(new int[32][32]);
+        assertFalse(pathfinder.isBuilt());
+        // the first query finishes the graph, later ones only search the clusters that changed since
+        pathfinder.findPath(tiles.cellIndex(1, 1), tiles.cellIndex(30, 30));
+        assertEquals(16 + 4, pathfinder.getRebuiltClusters());
+        pathfinder.findPath(tiles.cellIndex(1, 1), tiles.cellIndex(30, 30));
+        assertEquals(16 + 4, pathfinder.getRebuiltClusters());
+        tiles.setTile(5, 5, TileMap.FLOOR);
+        pathfinder.findPath(tiles.cellIndex(1, 1), tiles.cellIndex(30, 30));
+        assertEquals(16 + 5, pathfinder.getRebuiltClusters());
+    }
+
+    @Test
+    void graphBuiltInSlices() {
+        TileMap tiles = TestMaps.generate(128, 128, 14);
+        HierarchicalPathfinder pathfinder = new HierarchicalPathfinder(tiles, CLUSTER_SIZE);
+        Random random = new Random(15);
+        int calls = 0;
+        // without a budget every call builds one cluster, the openings of all clusters come first
+        while (!pathfinder.build(0)) {
+            calls++;
+            if (calls == 80) {
+                // a change to a cluster that is built already
+                tiles.setTile(3, 3, tiles.getTile(3, 3) == TileMap.WALL ? TileMap.FLOOR : TileMap.WALL);
+            }
+        }
+        assertEquals(3 * 64 - 1, calls);
+        assertTrue(pathfinder.isBuilt());
+        for (int i = 0; i < 100; i++) {
+            checkPath(tiles, pathfinder, randomFloor(tiles, random), randomFloor(tiles, random));
+        }
+    }
+}
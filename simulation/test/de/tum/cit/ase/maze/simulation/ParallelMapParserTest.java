@@ -0,0 +1,106 @@
+package de.tum.cit.ase.maze.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelMapParserTest {
+    private static final int SIZE = 300; // about 1 MB of text, so the file is split into several ranges
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    /**
+     * @return a map with every kind of line: tiles, blanks, comments, empty lines and all line breaks
+     */
+    private static String generateMap() {
+        Random random = new Random(5);
+        String[] breaks = {"\n", "\r\n", "\r"};
+        StringBuilder text = new StringBuilder();
+        for (int x = 0; x < SIZE; x++) {
+            for (int y = 0; y < SIZE; y++) {
+                String lineBreak = breaks[random.nextInt(breaks.length)];
+                switch (random.nextInt(20)) {
+                    case 0:
+                        text.append("# comment").append(lineBreak);
+                        break;
+                    case 1:
+                        text.append(lineBreak);
+                        break;
+                    case 2:
+                        text.append(' ').append(x).append(" , ").append(y).append(" : ").append(random.nextInt(8) - 1).append(lineBreak);
+                        break;
+                    default:
+                        text.append(x).append(',').append(y).append('=').append(random.nextInt(8) - 1).append(lineBreak);
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private static ByteBuffer bytes(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void sameMapAsSequentialParser() throws IOException {
+        String text = generateMap();
+        int[][] expected = PropertiesMapParser.parse(new StringReader(text));
+        assertArrayEquals(expected, ParallelMapParser.parse(bytes(text), pool));
+
+        TileStore store = ParallelMapParser.parseStore(bytes(text), pool);
+        for (int x = 0; x < expected.length; x++) {
+            for (int y = 0; y < expected[0].length; y++) {
+                assertEquals(expected[x][y], store.getTile(x, y));
+            }
+        }
+    }
+
+    @Test
+    void sameErrorLineInALaterRange() {
+        String text = generateMap();
+        // break a line in the last quarter of the file, far behind the first range
+        int lineStart = text.indexOf('\n', text.length() * 3 / 4) + 1;
+        String broken = text.substring(0, lineStart) + "12;3=4\n" + text.substring(lineStart);
+
+        MapFormatException sequential = assertThrows(MapFormatException.class,
+                () -> PropertiesMapParser.parse(new StringReader(broken)));
+        MapFormatException parallel = assertThrows(MapFormatException.class,
+                () -> ParallelMapParser.parse(bytes(broken), pool));
+        assertEquals(sequential.getLine(), parallel.getLine());
+        assertEquals(sequential.getMessage(), parallel.getMessage());
+    }
+
+    @Test
+    void sameErrorsForSmallMaps() {
+        String[] maps = {
+                "0,0=1\n1,0=2\n0,1=x\n",
+                "0,0=1\r\n\r\n1,0=2 3\r\n",
+                "# only a comment\n\n",
+                "0,0=1\n99999,0=0\n",
+                "0,-1=0\n",
+        };
+        for (String map : maps) {
+            MapFormatException sequential = assertThrows(MapFormatException.class,
+                    () -> PropertiesMapParser.parse(new StringReader(map)));
+            MapFormatException parallel = assertThrows(MapFormatException.class,
+                    () -> ParallelMapParser.parse(bytes(map), pool));
+            assertEquals(sequential.getMessage(), parallel.getMessage(), map);
+        }
+    }
+
+    @Test
+    void reportsLineAndReason() {
+        MapFormatException e = assertThrows(MapFormatException.class,
+                () -> PropertiesMapParser.parse(new StringReader("0,0=1\n\n1;0=2\n")));
+        assertEquals(3, e.getLine());
+        assertEquals("expected ',' after the x coordinate", e.getReason());
+        assertEquals("line 3: expected ',' after the x coordinate", e.getMessage());
+    }
+}
@@ -0,0 +1,87 @@
+package de.tum.cit.ase.maze.simulation;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulationTest {
+    private TileMap tiles;
+    private Player player;
+    private Simulation simulation;
+    private final List<Integer> killed = new ArrayList<>();
+
+    /**
+     * An empty room with walls around it
+     */
+    @BeforeEach
+    void setUp() {
+        int[][] map = new int[20][20];
+        for (int x = 0; x < 20; x++) {
+            for (int y = 0; y < 20; y++) {
+                boolean border = x == 0 || y == 0 || x == 19 || y == 19;
+                map[x][y] = border ? TileMap.WALL : TileMap.FLOOR;
+            }
+        }
+        tiles = new TileMap();
+        tiles.setTiles(map);
+        player = new Player(64, 64, tiles);
+        simulation = new Simulation(tiles, player, new Random(1));
+        simulation.setListener(new SimulationListener() {
+            @Override
+            public void enemyKilled(int x, int y) {
+                killed.add(tiles.cellIndex(x, y));
+            }
+        });
+    }
+
+    private void placePlayer(int x, int y) {
+        player.setxPosition(x * TileMap.TILE_SIZE);
+        player.setyPosition(y * TileMap.TILE_SIZE);
+    }
+
+    @Test
+    void attackKillsEnemiesAroundPlayer() {
+        tiles.setTile(9, 9, TileMap.ENEMY);
+        tiles.setTile(11, 10, TileMap.ENEMY);
+        tiles.setTile(10, 11, TileMap.ENEMY);
+        tiles.setTile(12, 10, TileMap.ENEMY);
+        placePlayer(10, 10);
+
+        simulation.tick(0.001f, Controls.ATTACK);
+
+        assertEquals(3, killed.size());
+        assertTrue(killed.contains(tiles.cellIndex(9, 9)));
+        assertTrue(killed.contains(tiles.cellIndex(11, 10)));
+        assertTrue(killed.contains(tiles.cellIndex(10, 11)));
+        assertEquals(TileMap.FLOOR, tiles.getTile(9, 9));
+        assertEquals(TileMap.ENEMY, tiles.getTile(12, 10));
+        assertEquals(1, tiles.getEntities(TileMap.ENEMY).size());
+    }
+
+    @Test
+    void attackAtMapEdge() {
+        tiles.setTile(1, 1, TileMap.ENEMY);
+        placePlayer(0, 0);
+
+        simulation.tick(0.001f, Controls.ATTACK);
+
+        assertEquals(List.of(tiles.cellIndex(1, 1)), killed);
+        assertEquals(0, tiles.getEntities(TileMap.ENEMY).size());
+    }
+
+    @Test
+    void noAttackWithoutButton() {
+        tiles.setTile(11, 10, TileMap.ENEMY);
+        placePlayer(10, 10);
+
+        simulation.tick(0.001f, 0);
+
+        assertTrue(killed.isEmpty());
+        assertEquals(TileMap.ENEMY, tiles.getTile(11, 10));
+    }
+}
@@ -0,0 +1,113 @@
+package de.tum.cit.ase.maze.simulation;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Random maps and a plain breadth-first search to check the pathfinders against
+ */
+final class TestMaps {
+    // no tile type, -1 would be floor
+    static final int NO_TYPE = Integer.MIN_VALUE;
+    private static final int[] DX = {0, 0, -1, 1};
+    private static final int[] DY = {1, -1, 0, 0};
+
+    private TestMaps() {
+    }
+
+    /**
+     * @return a map with walls around it, random walls inside, an entry, an exit, keys and enemies
+     */
+    static TileMap generate(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int[][] map = new int[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                boolean border = x == 0 || y == 0 || x == width - 1 || y == height - 1;
+                map[x][y] = border || random.nextInt(10) < 3 ? TileMap.WALL : TileMap.FLOOR;
+            }
+        }
+        map[1][1] = TileMap.ENTRY;
+        map[width - 1][height / 2] = TileMap.EXIT;
+        map[width - 2][height / 2] = TileMap.FLOOR;
+        for (int i = 0; i < width * height / 200 + 3; i++) {
+            map[1 + random.nextInt(width - 2)][1 + random.nextInt(height - 2)] = TileMap.KEY;
+        }
+        for (int i = 0; i < width * height / 20; i++) {
+            int x = 1 + random.nextInt(width - 2);
+            int y = 1 + random.nextInt(height - 2);
+            if (map[x][y] == TileMap.FLOOR) {
+                map[x][y] = TileMap.ENEMY;
+            }
+        }
+        TileMap tiles = new TileMap();
+        tiles.setTiles(map);
+        return tiles;
+    }
+
+    /**
+     * @return whether the tile can be walked on, or is the goal
+     */
+    private static boolean isPassable(TileMap tiles, int x, int y, int goalType, int goal) {
+        int tile = tiles.getTile(x, y);
+        return !TileMap.isSolid(tile) || tile == goalType || tiles.cellIndex(x, y) == goal;
+    }
+
+    /**
+     * Searches from the start over walkable tiles to the nearest tile of a type or to one goal tile,
+     * which may be solid
+     *
+     * @param goalType tile type to reach, or NO_TYPE
+     * @param goal     cell index to reach, or -1
+     * @return number of steps, -1 if it can't be reached
+     */
+    static int distance(TileMap tiles, int start, int goalType, int goal) {
+        int[] distances = new int[tiles.getWidth() * tiles.getHeight()];
+        Arrays.fill(distances, -1);
+        int[] queue = new int[distances.length];
+        int head = 0;
+        int tail = 0;
+        distances[start] = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = tiles.cellX(cell);
+            int y = tiles.cellY(cell);
+            if (cell == goal || tiles.getTile(x, y) == goalType) {
+                return distances[cell];
+            }
+            if (TileMap.isSolid(tiles.getTile(x, y)) && cell != start) {
+                continue; // a solid goal ends the path
+            }
+            for (int direction = 0; direction < 4; direction++) {
+                int nextX = x + DX[direction];
+                int nextY = y + DY[direction];
+                if (tiles.isWithinBounds(nextX, nextY) && isPassable(tiles, nextX, nextY, goalType, goal)) {
+                    int next = tiles.cellIndex(nextX, nextY);
+                    if (distances[next] < 0) {
+                        distances[next] = distances[cell] + 1;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return whether every two tiles of the path are neighbours and all but the last one are walkable
+     */
+    static boolean isConnected(TileMap tiles, int[] path, int length) {
+        for (int i = 0; i < length; i++) {
+            int x = tiles.cellX(path[i]);
+            int y = tiles.cellY(path[i]);
+            if (i < length - 1 && TileMap.isSolid(tiles.getTile(x, y))) {
+                return false;
+            }
+            if (i > 0 && Math.abs(x - tiles.cellX(path[i - 1])) + Math.abs(y - tiles.cellY(path[i - 1])) != 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+}